@@ -0,0 +1,61 @@
+package com.siemens.internship;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Item.validate throughput on accepted and rejected addresses, one call per address, against the
+// regular expression it replaced (EmailValidator.isValidByRegex)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailValidationBenchmark {
+
+    private static final String[] VALID = {
+            "test@example.com",
+            "user.name+first+second@example.co.uk",
+            "user_name@example.org",
+            "firstname.lastname.with.many.parts@subdomain.department.company.example.com"
+    };
+
+    private static final String[] INVALID = {
+            "address",
+            "@username.com",
+            "username@site..com",
+            "firstname.lastname.with.many.parts@subdomain.department.company.example.c0m"
+    };
+
+    private final Item item = new Item();
+
+    @Benchmark
+    public void validEmails(Blackhole blackhole) {
+        for (String email : VALID) {
+            blackhole.consume(item.validate(email));
+        }
+    }
+
+    @Benchmark
+    public void invalidEmails(Blackhole blackhole) {
+        for (String email : INVALID) {
+            blackhole.consume(item.validate(email));
+        }
+    }
+
+    @Benchmark
+    public void validEmailsRegex(Blackhole blackhole) {
+        for (String email : VALID) {
+            blackhole.consume(EmailValidator.isValidByRegex(email));
+        }
+    }
+
+    @Benchmark
+    public void invalidEmailsRegex(Blackhole blackhole) {
+        for (String email : INVALID) {
+            blackhole.consume(EmailValidator.isValidByRegex(email));
+        }
+    }
+}
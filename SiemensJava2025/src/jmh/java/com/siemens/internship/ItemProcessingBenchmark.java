@@ -0,0 +1,81 @@
+package com.siemens.internship;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full processing run against an in-memory H2 database of tableSize items, all of them unprocessed
+ * at the start of every invocation. Compares the chunked engine with the set-based bulk mode, and with
+ * an incremental run that only has the 1% of the rows modified since the previous invocation to read.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ItemProcessingBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int tableSize;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(InternshipApplication.class)
+                .web(WebApplicationType.NONE)
+                // command line arguments, so they take precedence over application.properties
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:processing-benchmark-" + tableSize,
+                        "--logging.level.root=WARN",
+                        // invocations are seconds apart, a lag would make each one re-read the previous delta
+                        "--item.processing.watermark-lag=0s");
+        itemService = context.getBean(ItemService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        for (int start = 0; start < tableSize; start += 10_000) {
+            List<Item> items = new ArrayList<>();
+            for (int i = start; i < Math.min(tableSize, start + 10_000); i++) {
+                items.add(new Item(null, "item " + i, "benchmark item", "UNPROCESSED", "user" + i + "@example.com"));
+            }
+            itemService.createAll(items);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void resetStatuses() {
+        jdbcTemplate.update("UPDATE item SET status = 'UNPROCESSED'");
+        jdbcTemplate.update("UPDATE item SET modified_at = CURRENT_TIMESTAMP WHERE MOD(id, 100) = 0");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProcessingJob chunked() {
+        return itemService.processItemsInBackground(new ProcessingJob(true)).join();
+    }
+
+    // the first (warmup) invocation has no checkpoint yet and reads everything
+    @Benchmark
+    public ProcessingJob incremental() {
+        return itemService.processItemsInBackground(new ProcessingJob()).join();
+    }
+
+    @Benchmark
+    public BulkProcessResult bulk() {
+        return itemService.processItemsInBulk(10_000, false);
+    }
+}
@@ -0,0 +1,83 @@
+package com.siemens.internship;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/items without the web layer: the whole table read and written as JSON, as managed entities
+ * (the previous path) against ItemView projections with the prebuilt writer. Run with
+ * -Djmh.args="ItemReadBenchmark -prof gc" to get the bytes allocated per read (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemReadBenchmark {
+
+    @Param({"10000", "100000"})
+    private int tableSize;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private ItemRepository itemRepository;
+    private TransactionTemplate transactionTemplate;
+    private ObjectMapper objectMapper;
+    private ObjectWriter viewsWriter;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(InternshipApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:read-benchmark-" + tableSize,
+                        "--logging.level.root=WARN");
+        itemService = context.getBean(ItemService.class);
+        itemRepository = context.getBean(ItemRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        objectMapper = context.getBean(ObjectMapper.class);
+        viewsWriter = objectMapper.writerFor(new TypeReference<List<ItemView>>() { });
+
+        for (int start = 0; start < tableSize; start += 10_000) {
+            List<Item> items = new ArrayList<>();
+            for (int i = start; i < Math.min(tableSize, start + 10_000); i++) {
+                items.add(new Item(null, "item " + i, "benchmark item", "UNPROCESSED", "user" + i + "@example.com"));
+            }
+            itemService.createAll(items);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    // managed entities with their snapshots, serialized by the shared ObjectMapper while still attached
+    @Benchmark
+    public byte[] entities() {
+        return transactionTemplate.execute(status -> {
+            try {
+                return objectMapper.writeValueAsBytes(itemRepository.findAll());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Benchmark
+    public byte[] views() throws Exception {
+        return viewsWriter.writeValueAsBytes(itemService.findAllViews());
+    }
+}
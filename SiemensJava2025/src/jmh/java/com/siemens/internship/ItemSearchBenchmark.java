@@ -0,0 +1,115 @@
+package com.siemens.internship;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ItemSearchIndex lookups over a table of items whose names (3 words) and descriptions (12 words) are
+ * drawn from a Zipf distributed vocabulary, so some words are in most items and most words in few.
+ * The queries mix one frequent or rare word, two words and a trailing prefix. Sample mode, so JMH
+ * reports the percentiles (p0.99) next to the mean. The index build time is printed once per trial.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class ItemSearchBenchmark {
+
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ne", "ru", "sa", "ti", "vo", "ze", "pa",
+            "do", "gu", "be", "fi", "ho", "ja", "ky", "wu", "xe", "qo"};
+    private static final int VOCABULARY = 20_000;
+
+    @Param({"1000000"})
+    private int tableSize;
+
+    private ConfigurableApplicationContext context;
+    private ItemSearchIndex searchIndex;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(InternshipApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:search-benchmark",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.siemens.internship.ItemSearchIndex=INFO");
+        ItemService itemService = context.getBean(ItemService.class);
+        searchIndex = context.getBean(ItemSearchIndex.class);
+
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int rest = i + 1; rest > 0; rest /= SYLLABLES.length) {
+                word.append(SYLLABLES[rest % SYLLABLES.length]);
+            }
+            words[i] = word.toString();
+        }
+        // Zipf (s = 1): cumulative weights of the word ranks
+        double[] cumulative = new double[VOCABULARY];
+        double sum = 0;
+        for (int i = 0; i < VOCABULARY; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        Random random = new Random(42);
+        for (int start = 0; start < tableSize; start += 10_000) {
+            List<Item> items = new ArrayList<>();
+            for (int i = start; i < Math.min(tableSize, start + 10_000); i++) {
+                items.add(new Item(null, text(words, cumulative, random, 3), text(words, cumulative, random, 12),
+                        "UNPROCESSED", "user" + i + "@example.com"));
+            }
+            itemService.createAll(items);
+        }
+        searchIndex.rebuild();
+
+        queries = new String[1000];
+        for (int i = 0; i < queries.length; i++) {
+            String frequent = words[random.nextInt(50)];
+            String rare = words[1000 + random.nextInt(VOCABULARY - 1000)];
+            String any = words[pick(cumulative, random)];
+            queries[i] = switch (i % 5) {
+                case 0 -> frequent;
+                case 1 -> rare;
+                case 2 -> any + " " + words[pick(cumulative, random)];
+                case 3 -> any.substring(0, Math.min(3, any.length()));
+                default -> frequent + " " + any.substring(0, Math.min(4, any.length()));
+            };
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public ItemSearchIndex.Hits search() {
+        String query = queries[next++ % queries.length];
+        return searchIndex.search(query, 0, 20).orElseThrow();
+    }
+
+    private static String text(String[] words, double[] cumulative, Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(i == 0 ? "" : " ").append(words[pick(cumulative, random)]);
+        }
+        return text.toString();
+    }
+
+    private static int pick(double[] cumulative, Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[cumulative.length - 1]);
+        return index >= 0 ? index : Math.min(cumulative.length - 1, -(index + 1));
+    }
+}
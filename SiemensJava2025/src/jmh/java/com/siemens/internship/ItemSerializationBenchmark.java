@@ -0,0 +1,39 @@
+package com.siemens.internship;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson serialization of the List<Item> returned by GET /api/items, with the ObjectMapper setup Spring MVC uses
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemSerializationBenchmark {
+
+    @Param({"100", "10000"})
+    private int listSize;
+
+    private ObjectMapper objectMapper;
+    private List<Item> items;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        items = new ArrayList<>(listSize);
+        for (long i = 0; i < listSize; i++) {
+            items.add(new Item(i, "item " + i, "benchmark item", i % 2 == 0 ? "PROCESSED" : "UNPROCESSED", "user" + i + "@example.com"));
+        }
+    }
+
+    @Benchmark
+    public byte[] getAllItems() throws Exception {
+        return objectMapper.writeValueAsBytes(items);
+    }
+}
@@ -0,0 +1,120 @@
+package com.siemens.internship;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Binary snapshot (ItemSnapshotFormat) against the JSON of GET /api/items for the same items, with and
+// without gzip. The encoded sizes are printed once per trial
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemSnapshotBenchmark {
+
+    @Param({"100000"})
+    private int listSize;
+
+    private ObjectMapper objectMapper;
+    private List<Item> items;
+    private byte[] snapshot;
+    private byte[] gzipSnapshot;
+    private byte[] json;
+    private byte[] gzipJson;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        items = new ArrayList<>(listSize);
+        for (long i = 0; i < listSize; i++) {
+            items.add(new Item(i, "item " + i, "benchmark item", i % 2 == 0 ? "PROCESSED" : "UNPROCESSED", "user" + i + "@example.com"));
+        }
+        snapshot = writeSnapshot(false);
+        gzipSnapshot = writeSnapshot(true);
+        json = writeJson(false);
+        gzipJson = writeJson(true);
+        System.out.printf("%n%d items: snapshot %d bytes, gzip snapshot %d bytes, JSON %d bytes, gzip JSON %d bytes%n",
+                listSize, snapshot.length, gzipSnapshot.length, json.length, gzipJson.length);
+    }
+
+    @Benchmark
+    public byte[] writeSnapshot() throws IOException {
+        return writeSnapshot(false);
+    }
+
+    @Benchmark
+    public byte[] writeGzipSnapshot() throws IOException {
+        return writeSnapshot(true);
+    }
+
+    @Benchmark
+    public byte[] writeJson() throws IOException {
+        return writeJson(false);
+    }
+
+    @Benchmark
+    public byte[] writeGzipJson() throws IOException {
+        return writeJson(true);
+    }
+
+    @Benchmark
+    public long readSnapshot() throws IOException {
+        return readSnapshot(snapshot);
+    }
+
+    @Benchmark
+    public long readGzipSnapshot() throws IOException {
+        return readSnapshot(gzipSnapshot);
+    }
+
+    @Benchmark
+    public List<Item> readJson() throws IOException {
+        return objectMapper.readValue(json, new TypeReference<List<Item>>() { });
+    }
+
+    @Benchmark
+    public List<Item> readGzipJson() throws IOException {
+        return objectMapper.readValue(new GZIPInputStream(new ByteArrayInputStream(gzipJson)), new TypeReference<List<Item>>() { });
+    }
+
+    private byte[] writeSnapshot(boolean compress) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ItemSnapshotFormat.Writer writer = new ItemSnapshotFormat.Writer(bytes, compress)) {
+            for (Item item : items) {
+                writer.write(item);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] writeJson(boolean compress) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = compress ? new GZIPOutputStream(bytes, 64 * 1024) : bytes) {
+            objectMapper.writeValue(out, items);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static long readSnapshot(byte[] bytes) throws IOException {
+        long count = 0;
+        try (ItemSnapshotFormat.Reader reader = new ItemSnapshotFormat.Reader(new ByteArrayInputStream(bytes))) {
+            while (reader.next() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,90 @@
+package com.siemens.internship;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulkheads in front of the endpoints that compete with interactive reads for threads and connections:
+ * <ul>
+ *     <li>writes - single item create, update and delete</li>
+ *     <li>bulk - batch writes, imports and snapshots</li>
+ *     <li>process - processing runs, one at a time; a second one is answered with TOO_MANY_REQUESTS</li>
+ * </ul>
+ * Saturated writes and bulk requests get SERVICE_UNAVAILABLE. Reads are not limited. Every bulkhead
+ * publishes item.admission.active / queued gauges and an item.admission.rejected counter, tagged by name.
+ */
+@Configuration
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    public static final String WRITES = "writes";
+    public static final String BULK = "bulk";
+    public static final String PROCESS = "process";
+
+    @Autowired
+    private List<Bulkhead> bulkheads;
+
+    // static: the bulkheads do not depend on this configuration instance, which itself needs them
+    @Bean
+    public static Bulkhead writesBulkhead(
+            @Value("${item.admission.writes.max-concurrent:8}") int maxConcurrent,
+            @Value("${item.admission.writes.max-queued:64}") int maxQueued,
+            @Value("${item.admission.writes.max-wait:PT1S}") Duration maxWait,
+            @Value("${item.admission.writes.retry-after:PT1S}") Duration retryAfter) {
+        return new Bulkhead(WRITES, maxConcurrent, maxQueued, maxWait, retryAfter, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Bean
+    public static Bulkhead bulkBulkhead(
+            @Value("${item.admission.bulk.max-concurrent:2}") int maxConcurrent,
+            @Value("${item.admission.bulk.max-queued:2}") int maxQueued,
+            @Value("${item.admission.bulk.max-wait:PT5S}") Duration maxWait,
+            @Value("${item.admission.bulk.retry-after:PT5S}") Duration retryAfter) {
+        return new Bulkhead(BULK, maxConcurrent, maxQueued, maxWait, retryAfter, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // a single slot that nobody waits for: the run in progress is the guard
+    @Bean
+    public static Bulkhead processBulkhead(@Value("${item.admission.process.retry-after:PT10S}") Duration retryAfter) {
+        return new Bulkhead(PROCESS, 1, 0, Duration.ZERO, retryAfter, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Bean
+    public static MeterBinder bulkheadMetrics(List<Bulkhead> bulkheads) {
+        return registry -> {
+            for (Bulkhead bulkhead : bulkheads) {
+                Gauge.builder("item.admission.active", bulkhead, Bulkhead::getActive)
+                        .description("Requests running under the bulkhead")
+                        .tag("bulkhead", bulkhead.getName())
+                        .register(registry);
+                Gauge.builder("item.admission.queued", bulkhead, Bulkhead::getQueued)
+                        .description("Requests waiting for a slot of the bulkhead")
+                        .tag("bulkhead", bulkhead.getName())
+                        .register(registry);
+                FunctionCounter.builder("item.admission.rejected", bulkhead, Bulkhead::getRejected)
+                        .description("Requests turned away because the bulkhead was saturated")
+                        .tag("bulkhead", bulkhead.getName())
+                        .register(registry);
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        Map<String, Bulkhead> byName = bulkheads.stream().collect(Collectors.toMap(Bulkhead::getName, Function.identity()));
+        registry.addInterceptor(new BulkheadInterceptor(byName));
+    }
+}
@@ -0,0 +1,5 @@
+package com.siemens.internship;
+
+// why the element at the given position of a batch request was not written
+public record BatchError(int index, String message) {
+}
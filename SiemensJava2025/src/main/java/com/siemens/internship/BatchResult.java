@@ -0,0 +1,7 @@
+package com.siemens.internship;
+
+import java.util.List;
+
+// outcome of a batch create/update: the items that were written and the rejected elements
+public record BatchResult(List<Item> items, List<BatchError> errors) {
+}
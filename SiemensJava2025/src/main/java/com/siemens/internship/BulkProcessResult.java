@@ -0,0 +1,7 @@
+package com.siemens.internship;
+
+import java.util.List;
+
+// outcome of a set-based processing run; ids is only filled when requested and stops at the configured cap
+public record BulkProcessResult(long updated, int ranges, long durationMillis, List<Long> ids, boolean idsTruncated) {
+}
@@ -0,0 +1,96 @@
+package com.siemens.internship;
+
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission limit for one group of endpoints: at most maxConcurrent requests run at once, at most
+ * maxQueued more wait up to maxWait for a slot, everything past that is turned away immediately with
+ * rejectionStatus and a Retry-After of retryAfter instead of piling up on threads and connections.
+ * Used by BulkheadInterceptor for the endpoints marked with {@link Bulkheaded}, see AdmissionConfig.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+    private final HttpStatus rejectionStatus;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public Bulkhead(String name, int maxConcurrent, int maxQueued, Duration maxWait, Duration retryAfter, HttpStatus rejectionStatus) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.maxWait = maxWait;
+        this.retryAfter = retryAfter;
+        this.rejectionStatus = rejectionStatus;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    // true when the caller got a slot and has to release() it; false when it was rejected
+    public boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+        try {
+            if (permits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+            rejected.incrementAndGet();
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.incrementAndGet();
+            return false;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // whole seconds for the Retry-After header, at least one
+    public long getRetryAfterSeconds() {
+        return Math.max(1, retryAfter.toSeconds());
+    }
+
+    public HttpStatus getRejectionStatus() {
+        return rejectionStatus;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+}
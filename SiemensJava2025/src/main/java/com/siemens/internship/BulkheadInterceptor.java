@@ -0,0 +1,51 @@
+package com.siemens.internship;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Map;
+
+/**
+ * Admits a request to a {@link Bulkheaded} handler only when its bulkhead has a slot (after waiting in its
+ * bounded queue if need be), and answers it right away with the bulkhead's rejection status and Retry-After
+ * otherwise. The slot is given back once the request has completed.
+ */
+public class BulkheadInterceptor implements HandlerInterceptor {
+    private static final String ACQUIRED = BulkheadInterceptor.class.getName() + ".acquired";
+
+    private final Map<String, Bulkhead> bulkheads;
+
+    public BulkheadInterceptor(Map<String, Bulkhead> bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method) || !method.hasMethodAnnotation(Bulkheaded.class)) {
+            return true;
+        }
+        String name = method.getMethodAnnotation(Bulkheaded.class).value();
+        Bulkhead bulkhead = bulkheads.get(name);
+        if (bulkhead == null) {
+            throw new IllegalStateException("No bulkhead named " + name);
+        }
+        if (!bulkhead.tryAcquire()) {
+            response.setStatus(bulkhead.getRejectionStatus().value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(bulkhead.getRetryAfterSeconds()));
+            return false;
+        }
+        request.setAttribute(ACQUIRED, bulkhead);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(ACQUIRED) instanceof Bulkhead bulkhead) {
+            request.removeAttribute(ACQUIRED);
+            bulkhead.release();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.siemens.internship;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// runs the handler method under the named Bulkhead (AdmissionConfig.WRITES, BULK, PROCESS)
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkheaded {
+    String value();
+}
@@ -0,0 +1,89 @@
+package com.siemens.internship;
+
+import java.util.List;
+
+/**
+ * Hand-written equivalent of {@link Item#VALID_EMAIL_ADDRESS_REGEX}: accepts exactly the strings the
+ * pattern matches, in a single pass over the characters and without allocating.
+ * <p>
+ * What the pattern requires, spelled out:
+ * <ul>
+ *     <li>no ".." anywhere (the lookahead)</li>
+ *     <li>a non-empty local part of ASCII letters, digits and {@code . _ % + -}</li>
+ *     <li>exactly one '@'</li>
+ *     <li>a domain of ASCII letters, digits, '.' and '-' whose last '.' has at least one character
+ *     before it and is followed by two or more letters and nothing else</li>
+ * </ul>
+ * Letters are matched case-insensitively, ASCII only, like the pattern's CASE_INSENSITIVE flag.
+ */
+public final class EmailValidator {
+
+    private EmailValidator() {
+    }
+
+    public static boolean isValid(CharSequence email) {
+        if (email == null) {
+            return false;
+        }
+        int length = email.length();
+        int at = -1;
+        int lastDot = -1;
+        // whether everything after the last '.' of the domain so far is a letter
+        boolean topLevelLetters = false;
+        char previous = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                if (at >= 0 || i == 0) {
+                    return false;
+                }
+                at = i;
+            } else if (c == '.') {
+                if (previous == '.') {
+                    return false;
+                }
+                if (at >= 0) {
+                    lastDot = i;
+                    topLevelLetters = true;
+                }
+            } else if (isLetter(c)) {
+                // allowed everywhere
+            } else if ((c >= '0' && c <= '9') || c == '-') {
+                if (at >= 0) {
+                    topLevelLetters = false;
+                }
+            } else if (c == '_' || c == '%' || c == '+') {
+                if (at >= 0) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+            previous = c;
+        }
+
+        return at > 0 && lastDot > at + 1 && length - lastDot > 2 && topLevelLetters;
+    }
+
+    /**
+     * Validates many addresses in one call, e.g. a whole import batch.
+     * The only allocation is the result: element i tells whether emails[i] is valid.
+     */
+    public static boolean[] validateAll(List<? extends CharSequence> emails) {
+        boolean[] valid = new boolean[emails.size()];
+        for (int i = 0; i < valid.length; i++) {
+            valid[i] = isValid(emails.get(i));
+        }
+        return valid;
+    }
+
+    // reference implementation, the regular expression isValid has to agree with
+    public static boolean isValidByRegex(CharSequence email) {
+        return email != null && Item.VALID_EMAIL_ADDRESS_REGEX.matcher(email).matches();
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
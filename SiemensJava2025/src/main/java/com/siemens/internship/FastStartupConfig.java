@@ -0,0 +1,23 @@
+package com.siemens.internship;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Under the fast-startup profile every bean is lazy (spring.main.lazy-initialization), which would move the
+ * cost of building the request path to the first request. The controller is kept eager, and with it the
+ * service, repositories and cache it needs, as is the search index, which starts its build once the
+ * application is ready. What stays lazy are the beans no request needs right away: import, snapshots,
+ * actuator endpoints and the like.
+ */
+@Configuration
+@Profile("fast-startup")
+public class FastStartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter requestPathExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(ItemController.class, ItemSearchIndex.class);
+    }
+}
@@ -0,0 +1,23 @@
+package com.siemens.internship;
+
+import java.util.Locale;
+
+// file formats accepted by ItemImporter
+public enum ImportFormat {
+    // name,description,status,email, optionally preceded by a header naming the columns in any order
+    CSV,
+    // one JSON item per line
+    NDJSON;
+
+    // by extension: .csv, or .ndjson / .jsonl
+    public static ImportFormat fromFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Cannot tell the import format of " + fileName);
+    }
+}
@@ -0,0 +1,13 @@
+package com.siemens.internship;
+
+// outcome of a bulk import; rejectsFile is the name of the file in item.import.rejects-dir listing the rejected
+// lines (the name only, the server's directories are not given out), null when there were none
+public record ImportResult(
+        long rows,
+        long imported,
+        long rejected,
+        long failed,
+        long durationMillis,
+        long rowsPerSecond,
+        String rejectsFile) {
+}
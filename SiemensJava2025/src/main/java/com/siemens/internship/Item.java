@@ -4,23 +4,39 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Instant;
 import java.util.regex.Pattern;
-import java.util.regex.Matcher;
 
 @Entity
+// (column, id) so a filtered keyset page is a single range scan on the index, already in id order
+@Table(indexes = {
+        @Index(name = "idx_item_status_id", columnList = "status, id"),
+        @Index(name = "idx_item_email_id", columnList = "email, id"),
+        @Index(name = "idx_item_modified_at_id", columnList = "modifiedAt, id")
+})
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 public class Item {
+    public static final int ID_ALLOCATION_SIZE = 1000;
+
+    // ids are handed out from a pooled sequence: one sequence call reserves ID_ALLOCATION_SIZE ids,
+    // so bulk inserts are not a sequence round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+    @SequenceGenerator(name = "item_seq", sequenceName = "item_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     private String name;
     private String description;
@@ -29,16 +45,35 @@ public class Item {
     // Add email regex validation
     private String email;
 
+    // optimistic locking: bumped on every update, conditional updates and deletes compare against it
+    @Version
+    private Long version;
+
+    // time of the last write, set by ItemService on every write path; incremental processing
+    // only reads the rows modified since its checkpoint
+    private Instant modifiedAt;
+
+    // the content fields only, the version and modification time are assigned when the item is written
+    public Item(Long id, String name, String description, String status, String email) {
+        this(id, name, description, status, email, null, null);
+    }
+
+    // rows inserted without going through ItemService still get a modification time
+    @PrePersist
+    void stampModifiedAt() {
+        if (modifiedAt == null) {
+            modifiedAt = Instant.now();
+        }
+    }
+
 //    public static final Pattern VALID_EMAIL_ADDRESS_REGEX =
 //            Pattern.compile("^[A-Z0-9._%+-]+@[A-Z0-9.-]+\\.[A-Z]{2,6}$", Pattern.CASE_INSENSITIVE);
+    // the rule emails are checked against, kept as the reference for EmailValidator (see EmailValidator.isValidByRegex)
     public static final Pattern VALID_EMAIL_ADDRESS_REGEX =
             Pattern.compile("^(?!.*\\.\\.)[A-Z0-9._%+-]+@[A-Z0-9.-]+\\.[A-Z]{2,}$", Pattern.CASE_INSENSITIVE);
 
+    // single-pass check accepting exactly what VALID_EMAIL_ADDRESS_REGEX matches, without a Matcher per call
     public boolean validate(String emailStr) {
-        if(emailStr == null){
-            return false;
-        }
-        Matcher matcher = VALID_EMAIL_ADDRESS_REGEX.matcher(emailStr);
-        return matcher.matches();
+        return EmailValidator.isValid(emailStr);
     }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.siemens.internship;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of items by id in front of the repository. Entries are evicted by size
+ * (item.cache.max-size) and by age since they were written (item.cache.ttl), and every write path
+ * in ItemService updates or invalidates the affected ids.
+ * The cached instances are shared between callers, so they must not be modified in place.
+ */
+@Component
+public class ItemCache implements MeterBinder {
+
+    private final Cache<Long, Item> cache;
+
+    public ItemCache(@Value("${item.cache.max-size:10000}") long maxSize,
+                     @Value("${item.cache.ttl:PT5M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // Loads on a miss. Missing items are not cached; an invalidation issued while the same id is being
+    // loaded waits for the load and then removes its result, so a concurrent write cannot leave a stale entry
+    public Optional<Item> get(Long id, Function<Long, Optional<Item>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    // the cached item only, never loads
+    public Optional<Item> getIfPresent(Long id) {
+        return Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    public void put(Item item) {
+        if (item != null && item.getId() != null) {
+            cache.put(item.getId(), item);
+        }
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll(Iterable<Long> ids) {
+        cache.invalidateAll(ids);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    // publishes the hit/miss/eviction counters as cache.* meters tagged cache=items
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "items");
+    }
+
+    public ItemCacheStats stats() {
+        CacheStats stats = cache.stats();
+        return new ItemCacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount(),
+                cache.estimatedSize(), stats.hitRate());
+    }
+}
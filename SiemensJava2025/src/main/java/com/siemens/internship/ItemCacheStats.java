@@ -0,0 +1,5 @@
+package com.siemens.internship;
+
+// counters of the item cache since startup, returned by GET /api/items/cache/stats
+public record ItemCacheStats(long hits, long misses, long evictions, long size, double hitRate) {
+}
@@ -0,0 +1,23 @@
+package com.siemens.internship;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Number of committed writes to a table, shared by every instance through the database; see ItemChangeTracker.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemChangeCounter {
+    @Id
+    private String name;
+    private long changes;
+}
@@ -0,0 +1,19 @@
+package com.siemens.internship;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface ItemChangeCounterRepository extends JpaRepository<ItemChangeCounter, String> {
+
+    // 0 while the counter row does not exist yet
+    @Modifying
+    @Query("UPDATE ItemChangeCounter c SET c.changes = c.changes + 1 WHERE c.name = :name")
+    int increment(@Param("name") String name);
+
+    @Query("SELECT c.changes FROM ItemChangeCounter c WHERE c.name = :name")
+    Optional<Long> findChanges(@Param("name") String name);
+}
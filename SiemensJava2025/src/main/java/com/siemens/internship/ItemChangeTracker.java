@@ -0,0 +1,69 @@
+package com.siemens.internship;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Counts the committed writes to the item table, for the ETag of the item collection (GET /api/items): a
+ * conditional GET reads one counter row by primary key instead of aggregating over every item. Every path that
+ * writes items calls itemsChanged(). The counter is bumped once the write has committed, in a short transaction
+ * of its own, so the item writes never queue up on the counter row; in between a reader may get the new items
+ * under the old tag, which only costs that client one more full read once the tag moves on.
+ */
+@Component
+public class ItemChangeTracker {
+    private static final Logger log = LoggerFactory.getLogger(ItemChangeTracker.class);
+    static final String ITEMS = "items";
+
+    @Autowired
+    private ItemChangeCounterRepository counterRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    public long current() {
+        return counterRepository.findChanges(ITEMS).orElse(0L);
+    }
+
+    // after the commit of the current transaction, right away when there is none
+    public void itemsChanged() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                increment();
+            }
+        });
+    }
+
+    private void increment() {
+        // a new transaction: in afterCommit the committed one is still bound to the thread
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (counterRepository.increment(ITEMS) == 0) {
+                        counterRepository.save(new ItemChangeCounter(ITEMS, 1));
+                    }
+                });
+            } catch (DataIntegrityViolationException e) {
+                // another instance created the row first
+                transactionTemplate.executeWithoutResult(status -> counterRepository.increment(ITEMS));
+            }
+        } catch (RuntimeException e) {
+            // the write itself is committed and must not fail on this; the tag catches up with the next write
+            log.error("Could not count a write to the items: {}", e.getMessage());
+        }
+    }
+}
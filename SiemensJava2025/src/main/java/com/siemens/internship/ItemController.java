@@ -1,29 +1,201 @@
 package com.siemens.internship;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/items")
 public class ItemController {
 
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final int MAX_PAGE_SIZE = 1000;
+    // deepest result reachable through offset + limit in a search
+    public static final int MAX_SEARCH_RESULTS = 10000;
+    // widest id range of one bulk UPDATE transaction, rangeSize of POST /api/items/process?mode=bulk
+    public static final long MAX_BULK_RANGE_SIZE = 1_000_000;
+    // lower bound of an item's JSON in the list, field names and punctuation alone; with the row count it
+    // tells whether the list reaches server.compression.min-response-size before it is written
+    private static final int MIN_ITEM_JSON_BYTES = 80;
+    // request attributes of Tomcat's sendfile support (org.apache.coyote.Constants)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     @Autowired
     private ItemService itemService;
 
+    @Autowired
+    private ProcessingJobRegistry jobRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // only needed by their own endpoints, created on first use under the fast-startup profile
+    @Lazy
+    @Autowired
+    private ItemImporter itemImporter;
+    @Lazy
+    @Autowired
+    private ItemSnapshotService snapshotService;
+
+    // held by POST /api/items/process for the whole background run, see startProcessing
+    @Autowired
+    private Bulkhead processBulkhead;
+
+    // Built once, so the type and its serializer are resolved up front instead of on every list response. Writes
+    // the items of the JSON array and the NDJSON lines one by one, without the flush after every value that
+    // ObjectMapper does by default: each flush would go out as its own chunk (and gzip sync-flush), the
+    // generator's buffer is flushed when full
+    private ObjectWriter itemViewWriter;
+
+    @PostConstruct
+    void buildWriters() {
+        itemViewWriter = objectMapper.writerFor(ItemView.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Value("${server.compression.enabled:false}")
+    private boolean compressionEnabled;
+
+    @Value("${server.compression.min-response-size:2KB}")
+    private DataSize compressionMinSize;
+
+    @Value("${item.batch.max-size:10000}")
+    private int maxBatchSize;
+
+    @Value("${item.processing.bulk.range-size:10000}")
+    private long bulkRangeSize;
+
+    // Strong ETag derived from ItemsVersion (the change counter row and the table row count, no scan): a
+    // matching If-None-Match is answered with NOT_MODIFIED before any item is loaded. Otherwise the ItemView
+    // projections are written into the response as they come off the database cursor, so the list is never
+    // held in memory. Tomcat leaves responses with a strong ETag uncompressed, so a list that reaches
+    // server.compression.min-response-size (judged from the row count) is gzipped here, under an ETag of its own
     @GetMapping
-    public ResponseEntity<List<Item>> getAllItems() {
-        return new ResponseEntity<>(itemService.findAll(), HttpStatus.OK);
+    public ResponseEntity<StreamingResponseBody> getAllItems(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ItemsVersion version = itemService.itemsVersion();
+        String tag = "items-" + version.tag();
+        String gzipTag = tag + "-gzip";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        Optional<String> matched = matchingETag(ifNoneMatch, tag, gzipTag);
+        if (matched.isPresent()) {
+            headers.setETag(matched.get());
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+
+        boolean gzip = compressionEnabled && acceptsGzip(acceptEncoding)
+                && version.count() * MIN_ITEM_JSON_BYTES >= compressionMinSize.toBytes();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setETag(quoted(gzip ? gzipTag : tag));
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        StreamingResponseBody body = out -> {
+            // closing the generator finishes the gzip stream
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(gzip ? new GZIPOutputStream(out) : out)) {
+                generator.writeStartArray();
+                itemService.streamAllViews(view -> {
+                    try {
+                        itemViewWriter.writeValue(generator, view);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    // Same listing as newline-delimited JSON, one ItemView per line written while the rows are read from the
+    // database cursor, so the first bytes go out immediately and the table is never held in memory
+    @GetMapping(produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllItems() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                itemService.streamAllViews(view -> {
+                    try {
+                        itemViewWriter.writeValue(generator, view);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_VALUE)).body(body);
+    }
+
+    // Cursor based listing: pass the nextCursor of a page as "after" to get the next one. Unlike OFFSET
+    // paging every page costs the same, and status/email filters are answered by the database indexes
+    @GetMapping("/page")
+    public ResponseEntity<ItemPage> getItemPage(@RequestParam(required = false) Long after,
+                                                @RequestParam(defaultValue = "50") int limit,
+                                                @RequestParam(required = false) String status,
+                                                @RequestParam(required = false) String email) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(itemService.findPage(after, limit, status, email), HttpStatus.OK);
+    }
+
+    // Keyword search over name and description, best match first (see ItemSearchIndex). The last word also
+    // matches as a prefix, for search-as-you-type. SERVICE_UNAVAILABLE while the index is still being built
+    @GetMapping("/search")
+    public ResponseEntity<ItemSearchPage> searchItems(@RequestParam String q,
+                                                      @RequestParam(defaultValue = "0") int offset,
+                                                      @RequestParam(defaultValue = "20") int limit) {
+        if (q.isBlank() || offset < 0 || limit < 1 || limit > MAX_PAGE_SIZE || offset + limit > MAX_SEARCH_RESULTS) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return itemService.search(q, offset, limit)
+                .map(page -> new ResponseEntity<>(page, HttpStatus.OK))
+                .orElseGet(() -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.set(HttpHeaders.RETRY_AFTER, "5");
+                    return new ResponseEntity<>(headers, HttpStatus.SERVICE_UNAVAILABLE);
+                });
     }
 
     // The HttpStatus for BAD_REQUEST and CREATED needed to be switched
     @PostMapping
+    @Bulkheaded(AdmissionConfig.WRITES)
     public ResponseEntity<Item> createItem(@Valid @RequestBody Item item, BindingResult result) {
         if (result.hasErrors() || !(item.validate(item.getEmail()))) {
             return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
@@ -37,39 +209,282 @@ public class ItemController {
 
     }
 
+    // Creates many items in one request: every element is validated, the valid ones are inserted in JDBC
+    // batches and the rejected ones are reported by position. BAD_REQUEST only when nothing could be created
+    @PostMapping("/batch")
+    @Bulkheaded(AdmissionConfig.BULK)
+    public ResponseEntity<BatchResult> createItems(@RequestBody List<Item> items) {
+        if (items.size() > maxBatchSize) {
+            return new ResponseEntity<>(HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+        BatchResult result = itemService.createAll(items);
+        return new ResponseEntity<>(result, batchStatus(result, HttpStatus.CREATED));
+    }
+
+    // Updates many existing items in one request, each element must carry its id
+    @PutMapping("/batch")
+    @Bulkheaded(AdmissionConfig.BULK)
+    public ResponseEntity<BatchResult> updateItems(@RequestBody List<Item> items) {
+        if (items.size() > maxBatchSize) {
+            return new ResponseEntity<>(HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+        BatchResult result = itemService.updateAll(items);
+        return new ResponseEntity<>(result, batchStatus(result, HttpStatus.OK));
+    }
+
+    private HttpStatus batchStatus(BatchResult result, HttpStatus success) {
+        if (result.items().isEmpty() && !result.errors().isEmpty()) {
+            return HttpStatus.BAD_REQUEST;
+        }
+        return success;
+    }
+
+    // Bulk load of a CSV or NDJSON body (by content type). The body is spooled to a temporary file first so
+    // ItemImporter can map it; the result has the counts and the name of the file the rejected lines were written to
+    @PostMapping(value = "/import", consumes = {"text/csv", NDJSON_VALUE})
+    @Bulkheaded(AdmissionConfig.BULK)
+    public ResponseEntity<ImportResult> importItems(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                    InputStream body) throws IOException {
+        ImportFormat format = MediaType.parseMediaType(NDJSON_VALUE).includes(contentType) ? ImportFormat.NDJSON : ImportFormat.CSV;
+        Path upload = Files.createTempFile("items-import-", "." + format.name().toLowerCase());
+        try {
+            Files.copy(body, upload, StandardCopyOption.REPLACE_EXISTING);
+            return new ResponseEntity<>(itemImporter.importFile(upload, format), HttpStatus.OK);
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    // Writes a binary snapshot of every item (gzipped unless compress=false), to be downloaded or restored by name
+    @PostMapping("/snapshots")
+    @Bulkheaded(AdmissionConfig.BULK)
+    public ResponseEntity<SnapshotResult> createSnapshot(@RequestParam(defaultValue = "true") boolean compress) throws IOException {
+        SnapshotResult result = snapshotService.write(compress);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setLocation(URI.create("/api/items/snapshots/" + result.name()));
+        return new ResponseEntity<>(result, headers, HttpStatus.CREATED);
+    }
+
+    // The snapshot file as is. On Tomcat's NIO connector the file is handed over through the sendfile request
+    // attributes: once the handler returns, Tomcat has the kernel copy it straight to the socket, without the
+    // bytes passing through the JVM. Elsewhere (other containers, MockMvc) it is streamed with
+    // FileChannel.transferTo into the response stream, which still copies through a buffer but never holds
+    // more of the file than that
+    @GetMapping(value = "/snapshots/{name}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> downloadSnapshot(@PathVariable String name, HttpServletRequest request) throws IOException {
+        Optional<Path> file = snapshotService.find(name);
+        if (file.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        long size = Files.size(file.get());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(size)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "\"");
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.get().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return response.build();
+        }
+        StreamingResponseBody body = out -> {
+            try (FileChannel channel = FileChannel.open(file.get())) {
+                WritableByteChannel target = Channels.newChannel(out);
+                for (long position = 0; position < size; ) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+        };
+        return response.body(body);
+    }
+
+    // Replaces every item with the ones of the snapshot, BAD_REQUEST when the file is not a complete snapshot.
+    // CONFLICT when its items cannot be inserted (e.g. the same id twice): the restore is rolled back as a
+    // whole and the items are left as they were
+    @PostMapping("/snapshots/{name}/restore")
+    @Bulkheaded(AdmissionConfig.BULK)
+    public ResponseEntity<SnapshotResult> restoreSnapshot(@PathVariable String name) throws IOException {
+        Optional<Path> file = snapshotService.find(name);
+        if (file.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        try {
+            return new ResponseEntity<>(snapshotService.restore(file.get()), HttpStatus.OK);
+        } catch (StreamCorruptedException | EOFException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (DataIntegrityViolationException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+    }
+
+    // ETag "<id>-<version>". With If-None-Match only the version is looked up (item cache or version
+    // column), NOT_MODIFIED when it still matches, so a poll of an unchanged item loads and serializes nothing
     @GetMapping("/{id}")
-    public ResponseEntity<Item> getItemById(@PathVariable Long id) {
+    public ResponseEntity<Item> getItemById(@PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            Optional<String> matched = itemService.findVersion(id)
+                    .flatMap(version -> matchingETag(ifNoneMatch, id + "-" + version));
+            if (matched.isPresent()) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setETag(matched.get());
+                return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+            }
+        }
         return itemService.findById(id)
-                .map(item -> new ResponseEntity<>(item, HttpStatus.OK))
+                .map(item -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    if (item.getVersion() != null) {
+                        headers.setETag(quoted(id + "-" + item.getVersion()));
+                    }
+                    return new ResponseEntity<>(item, headers, HttpStatus.OK);
+                })
                 .orElse(new ResponseEntity<>(HttpStatus.NO_CONTENT));
     }
 
+    // the quoted form of the first of the tags If-None-Match lists (or any tag for "*"); comparison is weak, as RFC 9110 wants for If-None-Match
+    private static Optional<String> matchingETag(String ifNoneMatch, String... tags) {
+        if (ifNoneMatch == null) {
+            return Optional.empty();
+        }
+        for (ETag candidate : ETag.parse(ifNoneMatch)) {
+            for (String tag : tags) {
+                if (candidate.isWildcard() || candidate.tag().equals(tag)) {
+                    return Optional.of(quoted(tag));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static String quoted(String tag) {
+        return "\"" + tag + "\"";
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
     // Changed the HttpStatus if the item is not found from ACCEPTED to NO_CONTENT)
+    // A single conditional UPDATE instead of findById + save: the row count tells whether the item exists,
+    // and when the body carries a version a concurrent change in between is reported as CONFLICT
     @PutMapping("/{id}")
+    @Bulkheaded(AdmissionConfig.WRITES)
     public ResponseEntity<Item> updateItem(@PathVariable Long id, @RequestBody Item item) {
-        Optional<Item> existingItem = itemService.findById(id);
-        if (existingItem.isPresent()) {
-            item.setId(id);
-            return new ResponseEntity<>(itemService.save(item), HttpStatus.CREATED);
-        } else {
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
-        }
+        ItemWriteResult result = itemService.update(id, item);
+        return switch (result.outcome()) {
+            case DONE -> new ResponseEntity<>(result.item(), HttpStatus.CREATED);
+            case CONFLICT -> new ResponseEntity<>(HttpStatus.CONFLICT);
+            case NOT_FOUND -> new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        };
     }
 
     // Changed request method, if the item to be deleted is found and removed an OK response is returned, if not found a NO CONTENT response wil be returned
+    // Also a single statement now; with ?version= the delete only happens if nobody changed the item since
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteItem(@PathVariable Long id) {
-        Optional<Item> existingItem = itemService.findById(id);
-        if (existingItem.isPresent()) {
-            itemService.deleteById(id);
-            return new ResponseEntity<>(HttpStatus.OK);
-        } else {
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
-        }
+    @Bulkheaded(AdmissionConfig.WRITES)
+    public ResponseEntity<Void> deleteItem(@PathVariable Long id, @RequestParam(required = false) Long version) {
+        return switch (itemService.delete(id, version)) {
+            case DONE -> new ResponseEntity<>(HttpStatus.OK);
+            case CONFLICT -> new ResponseEntity<>(HttpStatus.CONFLICT);
+            case NOT_FOUND -> new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        };
     }
 
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ItemCacheStats> getCacheStats() {
+        return new ResponseEntity<>(itemService.cacheStats(), HttpStatus.OK);
+    }
+
+    // both process endpoints only read the items modified since the last complete run unless full=true. In lease
+    // mode a run joins the round that is open, whatever full says; its status then has fullRescanIgnored set.
+    // Answers with the summary of the run rather than the updated items; the job is registered like a
+    // background one (when the registry has room), so its items can be paged through /process/{jobId}/items
     @GetMapping("/process")
-    public ResponseEntity<List<Item>> processItems() {
-        return new ResponseEntity<>(itemService.processItemsAsync(), HttpStatus.OK);
+    @Bulkheaded(AdmissionConfig.PROCESS)
+    public ResponseEntity<ProcessingJobStatus> processItems(@RequestParam(defaultValue = "false") boolean full) {
+        ProcessingJob job = jobRegistry.register(full).orElseGet(() -> new ProcessingJob(full));
+        return new ResponseEntity<>(itemService.processItems(job), HttpStatus.OK);
+    }
+
+    // Starts processing in the background and returns right away with the job to poll,
+    // instead of holding the request thread until every item is done. Takes the process bulkhead
+    // and keeps it until the job is finished, so no other run starts meanwhile
+    @PostMapping("/process")
+    public ResponseEntity<ProcessingJobStatus> startProcessing(@RequestParam(defaultValue = "false") boolean full) {
+        if (!processBulkhead.tryAcquire()) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(processBulkhead.getRetryAfterSeconds()));
+            return new ResponseEntity<>(headers, processBulkhead.getRejectionStatus());
+        }
+        Optional<ProcessingJob> job = jobRegistry.register(full);
+        if (job.isEmpty()) {
+            processBulkhead.release();
+            return new ResponseEntity<>(HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        try {
+            itemService.processItemsInBackground(job.get()).whenComplete((done, error) -> processBulkhead.release());
+        } catch (RuntimeException e) {
+            processBulkhead.release();
+            throw e;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setLocation(URI.create("/api/items/process/" + job.get().getId()));
+        return new ResponseEntity<>(job.get().status(), headers, HttpStatus.ACCEPTED);
+    }
+
+    // POST /api/items/process?mode=bulk: the whole run as set-based UPDATEs per id range instead of
+    // loading every item; fast enough to answer synchronously with the affected counts (and ids if asked)
+    @PostMapping(value = "/process", params = "mode=bulk")
+    @Bulkheaded(AdmissionConfig.PROCESS)
+    public ResponseEntity<BulkProcessResult> processItemsInBulk(@RequestParam(required = false) Long rangeSize,
+                                                                @RequestParam(defaultValue = "false") boolean returnIds) {
+        long size = rangeSize != null ? rangeSize : bulkRangeSize;
+        if (size < 1 || size > MAX_BULK_RANGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(itemService.processItemsInBulk(size, returnIds), HttpStatus.OK);
+    }
+
+    @GetMapping("/process/{jobId}")
+    public ResponseEntity<ProcessingJobStatus> getProcessingJob(@PathVariable String jobId) {
+        return jobRegistry.find(jobId)
+                .map(job -> new ResponseEntity<>(job.status(), HttpStatus.OK))
+                .orElse(new ResponseEntity<>(HttpStatus.NO_CONTENT));
+    }
+
+    // keyset pages of the items a job updated, see ItemService.findProcessedPage
+    @GetMapping("/process/{jobId}/items")
+    public ResponseEntity<ItemPage> getProcessedItems(@PathVariable String jobId,
+                                                      @RequestParam(required = false) Long after,
+                                                      @RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return jobRegistry.find(jobId)
+                .map(job -> new ResponseEntity<>(itemService.findProcessedPage(job, after, limit), HttpStatus.OK))
+                .orElse(new ResponseEntity<>(HttpStatus.NO_CONTENT));
+    }
+
+    // cancellation is cooperative, the job stops after the chunk it is working on
+    @DeleteMapping("/process/{jobId}")
+    public ResponseEntity<ProcessingJobStatus> cancelProcessingJob(@PathVariable String jobId) {
+        Optional<ProcessingJob> job = jobRegistry.find(jobId);
+        if (job.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        job.get().requestCancel();
+        return new ResponseEntity<>(job.get().status(), HttpStatus.ACCEPTED);
     }
 }
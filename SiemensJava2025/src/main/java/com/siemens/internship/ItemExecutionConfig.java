@@ -0,0 +1,72 @@
+package com.siemens.internship;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+
+/**
+ * Replaces the static, never shut down thread pool that ItemService used to own.
+ * item.processing.executor.mode selects the threads:
+ * <ul>
+ *     <li>platform - a fixed pool of max-in-flight threads (default)</li>
+ *     <li>virtual - a new virtual thread per task, needs a Java 21 runtime (build with -Pjdk21)</li>
+ * </ul>
+ * In both modes max-in-flight defaults to the Hikari pool size minus the connections kept free for the
+ * thread feeding the executor and for HTTP requests.
+ */
+@Configuration
+public class ItemExecutionConfig {
+
+    static final int RESERVED_CONNECTIONS = 2;
+
+    @Bean(destroyMethod = "close")
+    public ItemTaskExecutor itemTaskExecutor(
+            @Value("${item.processing.executor.mode:platform}") String mode,
+            @Value("${item.processing.executor.max-in-flight:0}") int maxInFlight,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+            @Value("${item.processing.executor.shutdown-timeout:PT30S}") Duration shutdownTimeout) {
+        int limit = maxInFlight > 0 ? maxInFlight : Math.max(1, connectionPoolSize - RESERVED_CONNECTIONS);
+        return new ItemTaskExecutor(createDelegate(mode, limit), limit, shutdownTimeout);
+    }
+
+    @Bean
+    public MeterBinder itemTaskExecutorMetrics(ItemTaskExecutor itemTaskExecutor) {
+        return registry -> {
+            Gauge.builder("item.executor.active", itemTaskExecutor, ItemTaskExecutor::getInFlight)
+                    .description("Item processing tasks currently running")
+                    .register(registry);
+            Gauge.builder("item.executor.queued", itemTaskExecutor, ItemTaskExecutor::getWaiting)
+                    .description("Submitters waiting for a free item processing slot")
+                    .register(registry);
+            Gauge.builder("item.executor.max", itemTaskExecutor, ItemTaskExecutor::getMaxInFlight)
+                    .description("Maximum item processing tasks in flight")
+                    .register(registry);
+        };
+    }
+
+    private AsyncTaskExecutor createDelegate(String mode, int threads) {
+        switch (mode) {
+            case "virtual":
+                // throws on a Java 17 runtime, virtual threads are only there from Java 21
+                return new VirtualThreadTaskExecutor("item-processing-");
+            case "platform":
+                ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+                pool.setThreadNamePrefix("item-processing-");
+                pool.setCorePoolSize(threads);
+                pool.setMaxPoolSize(threads);
+                // ItemTaskExecutor never has more than "threads" tasks out, so nothing ever waits in here
+                pool.setQueueCapacity(threads);
+                pool.initialize();
+                return pool;
+            default:
+                throw new IllegalArgumentException("Unknown item.processing.executor.mode: " + mode);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.siemens.internship;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Imports files given on the command line at startup:
+ * {@code java -jar internship.jar --import=items.csv [--import=more.ndjson] [--import-format=csv|ndjson]}.
+ * Without --import-format the format follows the file extension.
+ */
+@Component
+public class ItemImportRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(ItemImportRunner.class);
+
+    // created on first use under the fast-startup profile, most starts import nothing
+    @Lazy
+    @Autowired
+    private ItemImporter itemImporter;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!args.containsOption("import")) {
+            return;
+        }
+        for (String file : args.getOptionValues("import")) {
+            ImportFormat format = args.containsOption("import-format")
+                    ? ImportFormat.valueOf(args.getOptionValues("import-format").get(0).toUpperCase(Locale.ROOT))
+                    : ImportFormat.fromFileName(file);
+            ImportResult result = itemImporter.importFile(Path.of(file), format);
+            if (result.rejectsFile() != null) {
+                log.warn("{} lines of {} were rejected, see {}", result.rejected(), file, itemImporter.getRejectsDir().resolve(result.rejectsFile()));
+            }
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.siemens.internship;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk loads items from a CSV or NDJSON file. The file is read through memory mapped windows, line by
+ * line into one reused buffer, and each line is parsed straight from its bytes. Lines that cannot be
+ * parsed or whose email does not pass the Item rules are written to a rejects file next to the import.
+ * Valid items are inserted in batches of item.import.batch-size, each in its own transaction on the
+ * item task executor; the reader blocks while the executor is full, so at most max-in-flight batches
+ * are held in memory whatever the file size.
+ */
+@Service
+public class ItemImporter {
+    private static final Logger log = LoggerFactory.getLogger(ItemImporter.class);
+    private static final int MAX_LOGGED_ERRORS = 10;
+    private static final long PROGRESS_INTERVAL = 1_000_000;
+    private static final String[] COLUMNS = {"name", "description", "status", "email"};
+
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ItemTaskExecutor itemTaskExecutor;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+    @Autowired
+    private ItemChangeTracker itemChangeTracker;
+
+    @Value("${item.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${item.import.rejects-dir:${java.io.tmpdir}}")
+    private Path rejectsDir;
+
+    // bytes of the file mapped at a time; a line crossing the end of a window is carried over into the next
+    private long mapWindow = 64L * 1024 * 1024;
+
+    // where the rejects files named in the import results are
+    public Path getRejectsDir() {
+        return rejectsDir;
+    }
+
+    public ImportResult importFile(Path file, ImportFormat format) throws IOException {
+        long started = System.nanoTime();
+        Path rejectsFile = rejectsDir.resolve(file.getFileName() + ".rejects");
+        Files.deleteIfExists(rejectsFile);
+
+        ImportRun run = new ImportRun(format, rejectsFile, objectMapper.readerFor(Item.class));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ); run) {
+            LineReader lines = new LineReader(channel, mapWindow);
+            List<Item> batch = new ArrayList<>(batchSize);
+            while (lines.next()) {
+                Item item = run.parse(lines.line, lines.length, lines.number);
+                if (item == null) {
+                    continue;
+                }
+                batch.add(item);
+                if (batch.size() == batchSize) {
+                    inFlight.add(insert(transactionTemplate, batch, run));
+                    inFlight.removeIf(CompletableFuture::isDone);
+                    batch = new ArrayList<>(batchSize);
+                }
+                if (run.rows % PROGRESS_INTERVAL == 0) {
+                    log.info("Import of {}: {} rows read ({} rows/s)", file.getFileName(), run.rows, perSecond(run.rows, started));
+                }
+            }
+            if (!batch.isEmpty()) {
+                inFlight.add(insert(transactionTemplate, batch, run));
+            }
+        } finally {
+            // whatever stopped the reader, the batches already handed out are finished before returning
+            CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+        }
+
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        ImportResult result = new ImportResult(run.rows, run.imported.get(), run.rejected, run.failed.get(), durationMillis,
+                perSecond(run.rows, started), run.rejected > 0 ? rejectsFile.getFileName().toString() : null);
+        log.info("Import of {} finished: {} rows, {} imported, {} rejected, {} failed in {} ms ({} rows/s)",
+                file.getFileName(), result.rows(), result.imported(), result.rejected(), result.failed(),
+                durationMillis, result.rowsPerSecond());
+        return result;
+    }
+
+    // the batch is inserted in its own transaction; the items get their ids from the pooled sequence
+    // and reach the database as JDBC batches on commit
+    private CompletableFuture<Void> insert(TransactionTemplate transactionTemplate, List<Item> batch, ImportRun run) {
+        return itemTaskExecutor.submit(() -> {
+                    transactionTemplate.executeWithoutResult(status -> itemRepository.saveAll(batch));
+                    batch.forEach(itemSearchIndex::put);
+                    itemChangeTracker.itemsChanged();
+                    return batch.size();
+                })
+                .thenAccept(run.imported::addAndGet)
+                .exceptionally(e -> {
+                    if (run.errors.incrementAndGet() <= MAX_LOGGED_ERRORS) {
+                        log.error("Error inserting a batch of {} imported items: {}", batch.size(), e.getMessage());
+                    }
+                    run.failed.addAndGet(batch.size());
+                    return null;
+                });
+    }
+
+    private static long perSecond(long rows, long startedNanos) {
+        return rows * 1_000_000_000L / Math.max(1, System.nanoTime() - startedNanos);
+    }
+
+    // Lines of a file read through memory mapped windows into one buffer that is reused for every line,
+    // without the trailing \r\n
+    private static class LineReader {
+        private final FileChannel channel;
+        private final long windowSize;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowEnd;
+        private byte[] line = new byte[1024];
+        private int length;
+        private long number;
+
+        private LineReader(FileChannel channel, long windowSize) throws IOException {
+            this.channel = channel;
+            this.windowSize = windowSize;
+            this.size = channel.size();
+        }
+
+        private boolean next() throws IOException {
+            length = 0;
+            boolean read = false;
+            while (true) {
+                if (window == null || !window.hasRemaining()) {
+                    if (windowEnd >= size) {
+                        if (!read) {
+                            return false;
+                        }
+                        break;
+                    }
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, windowEnd, Math.min(windowSize, size - windowEnd));
+                    windowEnd += window.capacity();
+                }
+                read = true;
+
+                int start = window.position();
+                int limit = window.limit();
+                int end = start;
+                while (end < limit && window.get(end) != '\n') {
+                    end++;
+                }
+                append(end - start);
+                if (end < limit) {
+                    window.get();
+                    break;
+                }
+            }
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            number++;
+            return true;
+        }
+
+        private void append(int count) {
+            if (length + count > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, length + count));
+            }
+            window.get(line, length, count);
+            length += count;
+        }
+    }
+
+    // state of one import, parsing happens on the reader thread only; the counters updated by the
+    // insert batches are atomics
+    private static class ImportRun implements Closeable {
+        private final ImportFormat format;
+        private final Path rejectsFile;
+        private final ObjectReader itemReader;
+        private final Instant modifiedAt = Instant.now();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicInteger errors = new AtomicInteger();
+        private BufferedWriter rejects;
+        private long rows;
+        private long rejected;
+
+        // CSV: property (index into COLUMNS) of every field of a line, -1 for ignored columns
+        private int[] columns = {0, 1, 2, 3};
+        private String[] fields = new String[COLUMNS.length];
+        private byte[] unquoted = new byte[1024];
+        private boolean firstLine = true;
+
+        private ImportRun(ImportFormat format, Path rejectsFile, ObjectReader itemReader) {
+            this.format = format;
+            this.rejectsFile = rejectsFile;
+            this.itemReader = itemReader;
+        }
+
+        // the item of a line, or null for blank, header and rejected lines
+        private Item parse(byte[] line, int length, long number) throws IOException {
+            int offset = 0;
+            if (firstLine && length >= 3 && line[0] == (byte) 0xEF && line[1] == (byte) 0xBB && line[2] == (byte) 0xBF) {
+                offset = 3;
+            }
+            if (isBlank(line, offset, length)) {
+                return null;
+            }
+            boolean header = firstLine && format == ImportFormat.CSV && readHeader(line, offset, length);
+            firstLine = false;
+            if (header) {
+                return null;
+            }
+            rows++;
+
+            Item item;
+            if (format == ImportFormat.CSV) {
+                item = parseCsv(line, offset, length);
+                if (item == null) {
+                    reject(line, length, number, "expected " + columns.length + " fields");
+                    return null;
+                }
+            } else {
+                try {
+                    item = itemReader.readValue(line, offset, length - offset);
+                } catch (IOException e) {
+                    item = null;
+                }
+                // a line holding just null reads as no item at all
+                if (item == null) {
+                    reject(line, length, number, "malformed JSON");
+                    return null;
+                }
+            }
+
+            if (!EmailValidator.isValid(item.getEmail())) {
+                reject(line, length, number, "invalid email");
+                return null;
+            }
+            item.setId(null);
+            item.setVersion(null);
+            item.setModifiedAt(modifiedAt);
+            return item;
+        }
+
+        // a first line naming an email column is a header, its columns may come in any order
+        private boolean readHeader(byte[] line, int offset, int length) {
+            int count = splitCsv(line, offset, length);
+            if (count < 0 || Arrays.stream(fields, 0, count).noneMatch(f -> f != null && f.trim().equalsIgnoreCase("email"))) {
+                return false;
+            }
+            int[] header = new int[count];
+            for (int i = 0; i < count; i++) {
+                header[i] = fields[i] == null ? -1 : Arrays.asList(COLUMNS).indexOf(fields[i].trim().toLowerCase(Locale.ROOT));
+            }
+            columns = header;
+            fields = new String[Math.max(count, COLUMNS.length)];
+            return true;
+        }
+
+        private Item parseCsv(byte[] line, int offset, int length) {
+            if (splitCsv(line, offset, length) != columns.length) {
+                return null;
+            }
+            Item item = new Item();
+            for (int i = 0; i < columns.length; i++) {
+                switch (columns[i]) {
+                    case 0 -> item.setName(fields[i]);
+                    case 1 -> item.setDescription(fields[i]);
+                    case 2 -> item.setStatus(fields[i]);
+                    case 3 -> item.setEmail(fields[i]);
+                    default -> { }
+                }
+            }
+            return item;
+        }
+
+        // Splits a line into fields, empty ones become null. Quoted fields may contain commas and doubled
+        // quotes; a record has to fit on one line. Returns the number of fields, -1 when malformed
+        private int splitCsv(byte[] line, int offset, int length) {
+            int count = 0;
+            int i = offset;
+            while (true) {
+                if (count == fields.length) {
+                    return -1;
+                }
+                if (i < length && line[i] == '"') {
+                    if (unquoted.length < length) {
+                        unquoted = new byte[line.length];
+                    }
+                    int out = 0;
+                    i++;
+                    while (true) {
+                        if (i >= length) {
+                            return -1;
+                        }
+                        byte b = line[i++];
+                        if (b != '"') {
+                            unquoted[out++] = b;
+                        } else if (i < length && line[i] == '"') {
+                            unquoted[out++] = '"';
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                    if (i < length && line[i] != ',') {
+                        return -1;
+                    }
+                    fields[count++] = new String(unquoted, 0, out, StandardCharsets.UTF_8);
+                } else {
+                    int start = i;
+                    while (i < length && line[i] != ',') {
+                        i++;
+                    }
+                    fields[count++] = i > start ? new String(line, start, i - start, StandardCharsets.UTF_8) : null;
+                }
+                if (i >= length) {
+                    return count;
+                }
+                i++;
+            }
+        }
+
+        // line number, reason and the line as it was, tab separated; the file is only created on the first reject
+        private void reject(byte[] line, int length, long number, String reason) throws IOException {
+            rejected++;
+            if (rejects == null) {
+                rejects = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8);
+            }
+            rejects.write(number + "\t" + reason + "\t" + new String(line, 0, length, StandardCharsets.UTF_8));
+            rejects.newLine();
+        }
+
+        private static boolean isBlank(byte[] line, int offset, int length) {
+            for (int i = offset; i < length; i++) {
+                if (line[i] != ' ' && line[i] != '\t') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (rejects != null) {
+                rejects.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.siemens.internship;
+
+import java.time.Instant;
+
+// position of an item in (modifiedAt, id) order, the keyset cursor of incremental processing
+public record ItemKey(Long id, Instant modifiedAt) {
+}
@@ -0,0 +1,128 @@
+package com.siemens.internship;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the item hot paths, published through the actuator (/actuator/metrics, /actuator/prometheus):
+ * <ul>
+ *     <li>item.processing.item - processing time per item: the pipeline time of its chunk divided by the
+ *     chunk's items, recorded once for each of them, so the count is the number of items processed</li>
+ *     <li>item.processing.chunk - time to read, process and write back a whole chunk</li>
+ *     <li>item.repository{operation} - repository calls made by ItemService</li>
+ *     <li>item.processing.errors{exception} - failed chunks and runs by exception type</li>
+ *     <li>item.processing.retries - chunks retried after an optimistic locking conflict</li>
+ *     <li>item.pipeline.batch{stage} - time a pipeline stage spent on one batch</li>
+ *     <li>item.pipeline.items{stage,outcome} - items a stage passed on, dropped or failed</li>
+ *     <li>item.search - search index lookups, without reading the items of the page</li>
+ * </ul>
+ * Timers publish percentile histograms so latency distributions can be aggregated across instances. The
+ * stages work on batches, so item.processing.item is a share of a measured batch rather than a time taken
+ * per item; it carries no tags and adds one histogram whatever the number of items.
+ * Per-endpoint latency comes from Spring Boot's http.server.requests.
+ */
+@Component
+public class ItemMetrics {
+
+    private final MeterRegistry registry;
+    private final Timer itemTimer;
+    private final Timer chunkTimer;
+    private final Counter retryCounter;
+    private final Timer searchTimer;
+    private final Map<String, Timer> repositoryTimers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Counter> errorCounters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> stageCounters = new ConcurrentHashMap<>();
+
+    public ItemMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.itemTimer = Timer.builder("item.processing.item")
+                .description("Processing time of a single item, its share of the chunk's pipeline time")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.chunkTimer = Timer.builder("item.processing.chunk")
+                .description("Time to read, process and write back one chunk of items")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.retryCounter = Counter.builder("item.processing.retries")
+                .description("Chunks retried after a concurrent modification")
+                .register(registry);
+        this.searchTimer = Timer.builder("item.search")
+                .description("Search index lookup of one query")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    // the time of a pipeline pass over the given number of items, recorded as each item's share
+    public void recordItems(long nanos, int items) {
+        if (items == 0) {
+            return;
+        }
+        long perItem = nanos / items;
+        for (int i = 0; i < items; i++) {
+            itemTimer.record(perItem, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void recordChunk(long nanos) {
+        chunkTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRetry() {
+        retryCounter.increment();
+    }
+
+    public void recordSearch(long nanos) {
+        searchTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public <T> T timeRepository(String operation, Supplier<T> call) {
+        return repositoryTimers.computeIfAbsent(operation, op -> Timer.builder("item.repository")
+                        .description("Repository calls made by ItemService")
+                        .tag("operation", op)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(call);
+    }
+
+    public void recordError(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        errorCounters.computeIfAbsent(cause.getClass(), type -> Counter.builder("item.processing.errors")
+                        .description("Failed processing chunks and runs")
+                        .tag("exception", type.getSimpleName())
+                        .register(registry))
+                .increment();
+    }
+
+    public void recordStageBatch(String stage, long nanos, int passed, int dropped, int failed) {
+        stageTimers.computeIfAbsent(stage, name -> Timer.builder("item.pipeline.batch")
+                        .description("Time a pipeline stage spent on one batch of items")
+                        .tag("stage", name)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        countStageItems(stage, "passed", passed);
+        countStageItems(stage, "dropped", dropped);
+        countStageItems(stage, "failed", failed);
+    }
+
+    private void countStageItems(String stage, String outcome, int count) {
+        if (count == 0) {
+            return;
+        }
+        stageCounters.computeIfAbsent(stage + '/' + outcome, key -> Counter.builder("item.pipeline.items")
+                        .description("Items a pipeline stage passed on, dropped or failed")
+                        .tag("stage", stage)
+                        .tag("outcome", outcome)
+                        .register(registry))
+                .increment(count);
+    }
+}
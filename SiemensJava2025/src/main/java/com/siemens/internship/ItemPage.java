@@ -0,0 +1,16 @@
+package com.siemens.internship;
+
+import java.util.List;
+
+// one keyset page of items; pass nextCursor as "after" to get the next page, null when this is the last one
+public record ItemPage(List<ItemView> items, Long nextCursor) {
+
+    // from the rows of a query for limit + 1 of them: the extra row only tells that another page follows
+    static ItemPage of(List<ItemView> rows, int limit) {
+        if (rows.size() <= limit) {
+            return new ItemPage(rows, null);
+        }
+        List<ItemView> items = rows.subList(0, limit);
+        return new ItemPage(items, items.get(limit - 1).id());
+    }
+}
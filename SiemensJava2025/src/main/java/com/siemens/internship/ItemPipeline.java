@@ -0,0 +1,166 @@
+package com.siemens.internship;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The stages every processing chunk goes through, in the order of item.processing.pipeline.stages (see
+ * ItemProcessor and ItemPipelineConfig). Each stage has its own executor: parallelism threads and room for
+ * queue-capacity batches waiting for them, beyond which the chunk worker handing it a batch blocks. A slow
+ * stage (a remote lookup, say) therefore only ties up its own threads and backs up into the chunks feeding
+ * it, while the other stages keep working on the chunks that already got past it.
+ * Items that fail in a stage are reported in the Result and leave the pipeline; the rest of the chunk goes on.
+ */
+public class ItemPipeline implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ItemPipeline.class);
+    // failing items logged one by one per run, the rest only show up in the stage counts and the metrics
+    private static final int MAX_LOGGED_ERRORS = 10;
+
+    private final List<Stage> stages;
+    private final ItemMetrics itemMetrics;
+
+    public ItemPipeline(List<Stage> stages, ItemMetrics itemMetrics) {
+        this.stages = List.copyOf(stages);
+        this.itemMetrics = itemMetrics;
+    }
+
+    public List<Stage> getStages() {
+        return stages;
+    }
+
+    public Run newRun() {
+        return new Run();
+    }
+
+    @Override
+    public void close() {
+        stages.forEach(stage -> stage.executor().close());
+    }
+
+    public record Stage(ItemProcessor processor, ItemTaskExecutor executor, int batchSize) {
+        public String name() {
+            return processor.name();
+        }
+    }
+
+    // items that made it through every stage, in chunk order, and the ids of the ones that failed in a stage
+    public record Result(List<Item> passed, List<Long> failedIds) {
+    }
+
+    // what one stage did over a run; items/s is per second of stage thread time
+    public record StageStats(String stage, long items, long passed, long dropped, long failed, long batches, long busyNanos) {
+        public long itemsPerSecond() {
+            return busyNanos == 0 ? 0 : items * 1_000_000_000L / busyNanos;
+        }
+    }
+
+    /**
+     * One processing run: the chunk workers call process() concurrently and the run adds up, per stage,
+     * the items it saw and let through and the time its threads spent on them.
+     */
+    public class Run {
+        private final Map<String, StageCounters> counters = new LinkedHashMap<>();
+        private final AtomicInteger errors = new AtomicInteger();
+
+        private Run() {
+            // filled once here, only read afterwards
+            for (Stage stage : stages) {
+                counters.put(stage.name(), new StageCounters());
+            }
+        }
+
+        public Result process(List<Item> items) {
+            List<Item> current = items;
+            List<Long> failedIds = new ArrayList<>();
+            for (Stage stage : stages) {
+                if (current.isEmpty()) {
+                    break;
+                }
+                List<CompletableFuture<StageBatch>> batches = new ArrayList<>();
+                for (int from = 0; from < current.size(); from += stage.batchSize()) {
+                    List<Item> batch = List.copyOf(current.subList(from, Math.min(current.size(), from + stage.batchSize())));
+                    batches.add(stage.executor().submit(() -> runBatch(stage, batch)));
+                }
+                // joined in submission order, so the items keep the order of the chunk
+                List<Item> next = new ArrayList<>(current.size());
+                for (CompletableFuture<StageBatch> batch : batches) {
+                    StageBatch done = batch.join();
+                    next.addAll(done.passed());
+                    failedIds.addAll(done.failedIds());
+                }
+                current = next;
+            }
+            return new Result(current, failedIds);
+        }
+
+        public List<StageStats> stats() {
+            List<StageStats> stats = new ArrayList<>(counters.size());
+            counters.forEach((stage, counts) -> stats.add(new StageStats(stage, counts.items.sum(), counts.passed.sum(),
+                    counts.dropped.sum(), counts.failed.sum(), counts.batches.sum(), counts.busyNanos.sum())));
+            return stats;
+        }
+
+        private StageBatch runBatch(Stage stage, List<Item> batch) {
+            long started = System.nanoTime();
+            List<Item> passed = new ArrayList<>();
+            List<Long> failedIds = new ArrayList<>();
+            try {
+                passed.addAll(stage.processor().process(batch));
+            } catch (Exception e) {
+                if (batch.size() == 1) {
+                    failed(stage, batch.get(0), e, failedIds);
+                } else {
+                    // find the items that fail on their own
+                    for (Item item : batch) {
+                        try {
+                            passed.addAll(stage.processor().process(List.of(item)));
+                        } catch (Exception itemError) {
+                            failed(stage, item, itemError, failedIds);
+                        }
+                    }
+                }
+            }
+            long nanos = System.nanoTime() - started;
+            int dropped = batch.size() - passed.size() - failedIds.size();
+            counters.get(stage.name()).add(batch.size(), passed.size(), dropped, failedIds.size(), nanos);
+            itemMetrics.recordStageBatch(stage.name(), nanos, passed.size(), dropped, failedIds.size());
+            return new StageBatch(passed, failedIds);
+        }
+
+        private void failed(Stage stage, Item item, Exception error, List<Long> failedIds) {
+            if (errors.incrementAndGet() <= MAX_LOGGED_ERRORS) {
+                log.error("Item {} failed in stage {}: {}", item.getId(), stage.name(), error.getMessage());
+            }
+            failedIds.add(item.getId());
+        }
+    }
+
+    private record StageBatch(List<Item> passed, List<Long> failedIds) {
+    }
+
+    private static class StageCounters {
+        private final LongAdder items = new LongAdder();
+        private final LongAdder passed = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+
+        private void add(int items, int passed, int dropped, int failed, long nanos) {
+            this.items.add(items);
+            this.passed.add(passed);
+            this.dropped.add(dropped);
+            this.failed.add(failed);
+            this.batches.increment();
+            this.busyNanos.add(nanos);
+        }
+    }
+}
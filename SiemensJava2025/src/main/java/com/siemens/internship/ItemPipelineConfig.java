@@ -0,0 +1,94 @@
+package com.siemens.internship;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the processing pipeline from the ItemProcessor beans named in item.processing.pipeline.stages.
+ * Every stage reads its settings from item.processing.pipeline.&lt;name&gt;.*:
+ * <ul>
+ *     <li>parallelism - threads working on the stage's batches (default 1)</li>
+ *     <li>batch-size - items handed to the stage at once (default 100)</li>
+ *     <li>queue-capacity - batches allowed to wait for a thread before the chunk workers block (default 2 x parallelism)</li>
+ * </ul>
+ * Each stage publishes item.pipeline.active / waiting gauges tagged with its name.
+ */
+@Configuration
+public class ItemPipelineConfig {
+
+    private static final String PREFIX = "item.processing.pipeline.";
+
+    @Bean(destroyMethod = "close")
+    public ItemPipeline itemPipeline(
+            List<ItemProcessor> processors,
+            ItemMetrics itemMetrics,
+            Environment environment,
+            @Value("${item.processing.pipeline.stages:" + MarkProcessedStage.NAME + "}") List<String> stageNames,
+            @Value("${item.processing.executor.shutdown-timeout:PT30S}") Duration shutdownTimeout) {
+        Map<String, ItemProcessor> byName = new LinkedHashMap<>();
+        for (ItemProcessor processor : processors) {
+            if (byName.putIfAbsent(processor.name(), processor) != null) {
+                throw new IllegalStateException("Two item processing stages are named " + processor.name());
+            }
+        }
+        if (stageNames.isEmpty()) {
+            throw new IllegalArgumentException(PREFIX + "stages lists no stage");
+        }
+
+        List<ItemPipeline.Stage> stages = new ArrayList<>();
+        for (String name : stageNames) {
+            ItemProcessor processor = byName.get(name.trim());
+            if (processor == null) {
+                throw new IllegalArgumentException("Unknown item processing stage " + name + ", known stages: " + byName.keySet());
+            }
+            String prefix = PREFIX + processor.name() + ".";
+            int parallelism = environment.getProperty(prefix + "parallelism", Integer.class, 1);
+            int batchSize = environment.getProperty(prefix + "batch-size", Integer.class, 100);
+            int queueCapacity = environment.getProperty(prefix + "queue-capacity", Integer.class, 2 * parallelism);
+            if (parallelism < 1 || batchSize < 1 || queueCapacity < 0) {
+                throw new IllegalArgumentException("Invalid settings for item processing stage " + processor.name());
+            }
+            stages.add(new ItemPipeline.Stage(processor, stageExecutor(processor.name(), parallelism, queueCapacity, shutdownTimeout), batchSize));
+        }
+        return new ItemPipeline(stages, itemMetrics);
+    }
+
+    @Bean
+    public MeterBinder itemPipelineMetrics(ItemPipeline itemPipeline) {
+        return registry -> {
+            for (ItemPipeline.Stage stage : itemPipeline.getStages()) {
+                Gauge.builder("item.pipeline.active", stage.executor(), ItemTaskExecutor::getInFlight)
+                        .description("Batches running or queued in a pipeline stage")
+                        .tag("stage", stage.name())
+                        .register(registry);
+                Gauge.builder("item.pipeline.waiting", stage.executor(), ItemTaskExecutor::getWaiting)
+                        .description("Chunk workers blocked on a full pipeline stage")
+                        .tag("stage", stage.name())
+                        .register(registry);
+            }
+        };
+    }
+
+    // the permits of the ItemTaskExecutor are the stage's threads plus its queue
+    private static ItemTaskExecutor stageExecutor(String name, int parallelism, int queueCapacity, Duration shutdownTimeout) {
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setThreadNamePrefix("item-pipeline-" + name + "-");
+        pool.setCorePoolSize(parallelism);
+        pool.setMaxPoolSize(parallelism);
+        // never fuller than the permits, sized so a batch handed over right after a permit came back still fits
+        pool.setQueueCapacity(parallelism + queueCapacity);
+        pool.initialize();
+        return new ItemTaskExecutor(pool, parallelism + queueCapacity, shutdownTimeout);
+    }
+}
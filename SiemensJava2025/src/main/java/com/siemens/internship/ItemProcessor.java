@@ -0,0 +1,26 @@
+package com.siemens.internship;
+
+import java.util.List;
+
+/**
+ * One stage of the processing pipeline (see ItemPipeline). Implementations are Spring beans and take part
+ * in the runs once their name is listed in item.processing.pipeline.stages.
+ * A stage gets the items of a chunk in batches of its batch-size, on its own threads and with no transaction
+ * open: the items were read in a transaction of their own and are detached, and the ones passed on are written
+ * back in another one once every stage is done. It may change the items it is given (its own repository reads
+ * or remote calls are fine) without holding a database connection while it waits. A chunk that runs into a concurrent write is read
+ * again and goes through every stage again, so a stage has to cope with seeing the same item twice.
+ */
+public interface ItemProcessor {
+
+    // stage name, the key of its item.processing.pipeline.<name>.* settings and the stage tag of its meters
+    String name();
+
+    /**
+     * Processes the batch in place and returns the items that go on to the next stage and are written back
+     * after the last one. Items left out need no write and must be left unchanged.
+     * An exception fails the batch, which is then run again one item at a time so that only the items
+     * failing on their own are reported as failed; the batch itself cannot be modified.
+     */
+    List<Item> process(List<Item> batch) throws Exception;
+}
@@ -1,11 +1,128 @@
 package com.siemens.internship;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
     @Query("SELECT id FROM Item")
     List<Long> findAllIds();
+
+    // id boundaries of the next processing chunk within (after, last], the chunk itself is then read as an id range
+    @Query("SELECT i.id FROM Item i WHERE i.id > :after AND i.id <= :last ORDER BY i.id")
+    List<Long> findIdsBetween(@Param("after") Long after, @Param("last") Long last, Pageable pageable);
+
+    List<Item> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long after, Long last);
+
+    // incremental processing: the rows of the id range (rangeStart, rangeEnd] written after :since and before
+    // :until, in (modifiedAt, id) order from the cursor on, so each page is a range scan on
+    // idx_item_modified_at_id and the cost of a run follows the number of changed rows instead of the table size
+    @Query("SELECT new com.siemens.internship.ItemKey(i.id, i.modifiedAt) FROM Item i " +
+            "WHERE i.modifiedAt > :since AND i.modifiedAt < :until AND i.id > :rangeStart AND i.id <= :rangeEnd " +
+            "AND (i.modifiedAt > :afterModifiedAt OR (i.modifiedAt = :afterModifiedAt AND i.id > :afterId)) " +
+            "ORDER BY i.modifiedAt, i.id")
+    List<ItemKey> findKeysModifiedBetween(@Param("since") Instant since, @Param("until") Instant until,
+                                          @Param("rangeStart") Long rangeStart, @Param("rangeEnd") Long rangeEnd,
+                                          @Param("afterModifiedAt") Instant afterModifiedAt,
+                                          @Param("afterId") Long afterId, Pageable pageable);
+
+    long countByModifiedAtAfter(Instant since);
+
+    // the items a processing run updated, by the modifiedAt it stamped them with: a range scan on idx_item_modified_at_id
+    List<ItemView> findViewsByModifiedAtAndIdGreaterThanOrderByIdAsc(Instant modifiedAt, Long after, Pageable pageable);
+
+    List<ItemView> findViewsByModifiedAtAndIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Instant modifiedAt, Long after, Long last, Pageable pageable);
+
+    // single-statement writes for the controller: the affected-row count tells whether the row was there
+    // (and still had the expected version), so no findById is needed before the write
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Item i SET i.name = :name, i.description = :description, i.status = :status, i.email = :email, " +
+            "i.modifiedAt = :modifiedAt, i.version = i.version + 1 WHERE i.id = :id")
+    int updateContent(@Param("id") Long id, @Param("name") String name, @Param("description") String description,
+                      @Param("status") String status, @Param("email") String email,
+                      @Param("modifiedAt") Instant modifiedAt);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Item i SET i.name = :name, i.description = :description, i.status = :status, i.email = :email, " +
+            "i.modifiedAt = :modifiedAt, i.version = i.version + 1 WHERE i.id = :id AND i.version = :version")
+    int updateContentIfVersion(@Param("id") Long id, @Param("version") Long version, @Param("name") String name,
+                               @Param("description") String description, @Param("status") String status,
+                               @Param("email") String email, @Param("modifiedAt") Instant modifiedAt);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Item i WHERE i.id = :id")
+    int deleteItem(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Item i WHERE i.id = :id AND i.version = :version")
+    int deleteItemIfVersion(@Param("id") Long id, @Param("version") Long version);
+
+    @Query("SELECT MIN(i.id) FROM Item i")
+    Long findMinId();
+
+    @Query("SELECT MAX(i.id) FROM Item i")
+    Long findMaxId();
+
+    // set-based status transition of one id range (after, last], no entity is loaded.
+    // Clears the persistence context afterwards so no stale managed copy survives the update
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Item i SET i.status = 'PROCESSED', i.modifiedAt = :modifiedAt, i.version = i.version + 1 " +
+            "WHERE i.id > :after AND i.id <= :last AND (i.status IS NULL OR i.status <> 'PROCESSED')")
+    int markProcessedInRange(@Param("after") Long after, @Param("last") Long last,
+                             @Param("modifiedAt") Instant modifiedAt);
+
+    // the rows markProcessedInRange is about to change, for callers that want the affected ids
+    @Query("SELECT i.id FROM Item i " +
+            "WHERE i.id > :after AND i.id <= :last AND (i.status IS NULL OR i.status <> 'PROCESSED') ORDER BY i.id")
+    List<Long> findUnprocessedIdsInRange(@Param("after") Long after, @Param("last") Long last);
+
+    // filtered keyset pages of read-only views, served by the (status, id) and (email, id) indexes declared on Item
+    List<ItemView> findViewsByStatusAndIdGreaterThanOrderByIdAsc(String status, Long id, Pageable pageable);
+
+    List<ItemView> findViewsByEmailAndIdGreaterThanOrderByIdAsc(String email, Long id, Pageable pageable);
+
+    List<ItemView> findViewsByStatusAndEmailAndIdGreaterThanOrderByIdAsc(String status, String email, Long id, Pageable pageable);
+
+    // the whole table as read-only views in id order, see ItemView
+    @Query("SELECT new com.siemens.internship.ItemView(i.id, i.name, i.description, i.status, i.email, i.version, i.modifiedAt) " +
+            "FROM Item i ORDER BY i.id")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    List<ItemView> findAllViews();
+
+    // same as findAllViews, one view at a time; needs an open transaction and closing, see ItemService.streamAllViews
+    @Query("SELECT new com.siemens.internship.ItemView(i.id, i.name, i.description, i.status, i.email, i.version, i.modifiedAt) " +
+            "FROM Item i ORDER BY i.id")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<ItemView> streamAllViews();
+
+    // keyset page of read-only views: the next rows strictly after the given id, so every page is an index range
+    // scan no matter how deep into the table it is (unlike OFFSET paging). Nothing of it stays in the persistence
+    // context; read by the snapshot writer and the item pages
+    @Query("SELECT new com.siemens.internship.ItemView(i.id, i.name, i.description, i.status, i.email, i.version, i.modifiedAt) " +
+            "FROM Item i WHERE i.id > :after ORDER BY i.id")
+    List<ItemView> findViewsByIdGreaterThan(@Param("after") Long after, Pageable pageable);
+
+    // name and description of the ids in (after, last], to build the search index from
+    @Query("SELECT new com.siemens.internship.ItemText(i.id, i.name, i.description) FROM Item i WHERE i.id > :after AND i.id <= :last")
+    List<ItemText> findTextsInRange(@Param("after") Long after, @Param("last") Long last);
+
+    // the search results of a page, in no particular order
+    @Query("SELECT new com.siemens.internship.ItemView(i.id, i.name, i.description, i.status, i.email, i.version, i.modifiedAt) " +
+            "FROM Item i WHERE i.id IN :ids")
+    List<ItemView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // version column only, for conditional GETs of a single item
+    @Query("SELECT i.version FROM Item i WHERE i.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 }
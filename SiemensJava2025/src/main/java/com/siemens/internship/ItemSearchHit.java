@@ -0,0 +1,4 @@
+package com.siemens.internship;
+
+public record ItemSearchHit(ItemView item, double score) {
+}
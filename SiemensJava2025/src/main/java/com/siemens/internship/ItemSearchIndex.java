@@ -0,0 +1,738 @@
+package com.siemens.internship;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the name and description of every item, behind GET /api/items/search.
+ * Text is split into lower-cased runs of letters and digits. Every term has the ids of the items containing
+ * it in sorted primitive arrays, one per field combination (name, description, both), and the terms are kept
+ * sorted so the terms starting with a prefix are one sub map.
+ * <p>
+ * A query matches the items containing every one of its words, the last word also as a prefix (up to
+ * item.search.max-expansions terms: the word itself, then the most frequent longer ones). Items are ranked by the sum over the words
+ * of idf x field weight, a match in the name counting twice a match in the description, then by id. All the
+ * items of an array score the same for its term, so the arrays are intersected best combination first and
+ * the search stops once the page cannot change any more; the total is then only a lower bound, see
+ * {@link Hits#totalExact()}.
+ * <p>
+ * The index is built after startup from id ranges of item.search.build-range-size read in parallel on the
+ * item task executor, and searches are refused until it is complete. ItemService keeps it up to date on
+ * every write; writes made while it is being built are applied once the build is done.
+ */
+@Component
+public class ItemSearchIndex implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(ItemSearchIndex.class);
+    static final int NAME = 1;
+    static final int DESCRIPTION = 2;
+    private static final double NAME_WEIGHT = 2.0;
+    private static final int MAX_TOKEN_LENGTH = 64;
+    // a posting list gets a bitmap when it holds one in DENSE ids (and at least MIN_DENSE)
+    private static final int DENSE = 64;
+    private static final int MIN_DENSE = 1024;
+    private static final int MAX_CACHED_PREFIXES = 10_000;
+
+    private enum State { EMPTY, BUILDING, READY }
+
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemTaskExecutor itemTaskExecutor;
+    // Spring's executor for @Async work
+    @Autowired
+    private TaskExecutor applicationTaskExecutor;
+
+    @Value("${item.search.build-range-size:10000}")
+    private long buildRangeSize;
+
+    @Value("${item.search.max-expansions:8}")
+    private int maxExpansions;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object buildMonitor = new Object();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    // the postings every item is in, to take it out of them again on an update or delete
+    private final Map<Long, Postings[]> documents = new HashMap<>();
+    // latest text of the items written during a build, null fields for a deleted one
+    private final Map<Long, ItemText> pending = new LinkedHashMap<>();
+    // prefix -> the terms it expands to, dropped whenever a term is added or removed; searches only read it
+    // under the read lock, hence the concurrent map
+    private final Map<String, List<Postings>> expansions = new ConcurrentHashMap<>();
+    private State state = State.EMPTY;
+
+    public record Hit(long id, double score) {
+    }
+
+    // total counts every matching item when exact, else the ones seen before the page was settled
+    public record Hits(long total, boolean totalExact, List<Hit> hits) {
+    }
+
+    // in the background, requests are served meanwhile and searches answered with SERVICE_UNAVAILABLE
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        applicationTaskExecutor.execute(this::rebuild);
+    }
+
+    // Replaces the index with one built from the table. Writes made until the build starts must already be
+    // committed, like on startup or after a snapshot restore; the ones made during the build are applied after it
+    public void rebuild() {
+        synchronized (buildMonitor) {
+            long started = System.nanoTime();
+            update(() -> {
+                terms.clear();
+                documents.clear();
+                pending.clear();
+                expansions.clear();
+                state = State.BUILDING;
+            });
+            List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+            try {
+                Long min = itemRepository.findMinId();
+                Long max = itemRepository.findMaxId();
+                try {
+                    if (min != null) {
+                        for (long after = min - 1; after < max; after = Math.min(max, after + buildRangeSize)) {
+                            long from = after;
+                            long last = Math.min(max, after + buildRangeSize);
+                            // read and tokenized in parallel, only adding the terms takes the lock
+                            inFlight.add(itemTaskExecutor.submit(() -> tokenize(itemRepository.findTextsInRange(from, last)))
+                                    .thenAccept(tokenized -> update(() -> tokenized.forEach(this::append))));
+                            inFlight.removeIf(CompletableFuture::isDone);
+                        }
+                    }
+                } finally {
+                    CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+                }
+                update(() -> {
+                    // the ranges were appended in whatever order they finished
+                    terms.values().forEach(Postings::sort);
+                    pending.values().forEach(text -> apply(text.id(), text.name(), text.description()));
+                    pending.clear();
+                    expansions.clear();
+                    state = State.READY;
+                });
+            } catch (RuntimeException e) {
+                update(() -> {
+                    terms.clear();
+                    documents.clear();
+                    pending.clear();
+                    expansions.clear();
+                    state = State.EMPTY;
+                });
+                log.error("Building the search index failed: {}", e.getMessage());
+                throw e;
+            }
+            log.info("Search index built: {} items, {} terms in {} ms", size(), termCount(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+    }
+
+    public void put(Item item) {
+        if (item != null && item.getId() != null) {
+            write(new ItemText(item.getId(), item.getName(), item.getDescription()));
+        }
+    }
+
+    public void remove(Long id) {
+        write(new ItemText(id, null, null));
+    }
+
+    /**
+     * The items ranked offset to offset + limit for the query, empty while the index is not built.
+     * Only ids and scores: the items themselves may have been deleted since.
+     */
+    public Optional<Hits> search(String query, int offset, int limit) {
+        List<String> words = new ArrayList<>(tokenize(query, null).keySet());
+        lock.readLock().lock();
+        try {
+            if (state != State.READY) {
+                return Optional.empty();
+            }
+            if (words.isEmpty()) {
+                return Optional.of(new Hits(0, true, List.of()));
+            }
+            QueryTerm[] queryTerms = new QueryTerm[words.size()];
+            for (int i = 0; i < words.size(); i++) {
+                List<Postings> matches = i == words.size() - 1 ? expand(words.get(i)) : exact(words.get(i));
+                if (matches.isEmpty()) {
+                    return Optional.of(new Hits(0, true, List.of()));
+                }
+                queryTerms[i] = new QueryTerm(matches, documents.size());
+            }
+            return Optional.of(collect(queryTerms, offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return state == State.READY;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("item.search.items", this, ItemSearchIndex::size)
+                .description("Items in the search index")
+                .register(registry);
+        Gauge.builder("item.search.terms", this, ItemSearchIndex::termCount)
+                .description("Distinct terms in the search index")
+                .register(registry);
+    }
+
+    // before the first build nothing is kept, the build reads the committed rows anyway
+    private void write(ItemText text) {
+        update(() -> {
+            if (state == State.READY) {
+                apply(text.id(), text.name(), text.description());
+            } else if (state == State.BUILDING) {
+                pending.put(text.id(), text);
+            }
+        });
+    }
+
+    private void update(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // build only: the postings are sorted once every range is in
+    private void append(Document document) {
+        Postings[] postings = new Postings[document.fields().size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> term : document.fields().entrySet()) {
+            postings[i] = terms.computeIfAbsent(term.getKey(), Postings::new);
+            postings[i++].append(document.id(), term.getValue());
+        }
+        documents.put(document.id(), postings);
+    }
+
+    private void apply(long id, String name, String description) {
+        Map<String, Integer> fields = tokenize(name, description);
+        Postings[] current = documents.get(id);
+        if (current != null && sameTerms(id, current, fields)) {
+            // processing and most updates do not touch the text
+            return;
+        }
+        if (current != null) {
+            for (Postings postings : current) {
+                postings.remove(id);
+                if (postings.size == 0) {
+                    terms.remove(postings.term);
+                    expansions.clear();
+                }
+            }
+        }
+        if (fields.isEmpty()) {
+            documents.remove(id);
+            return;
+        }
+        Postings[] postings = new Postings[fields.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> term : fields.entrySet()) {
+            postings[i] = terms.computeIfAbsent(term.getKey(), this::newTerm);
+            postings[i++].insert(id, term.getValue());
+        }
+        documents.put(id, postings);
+    }
+
+    private static boolean sameTerms(long id, Postings[] current, Map<String, Integer> fields) {
+        if (current.length != fields.size()) {
+            return false;
+        }
+        for (Postings postings : current) {
+            Integer expected = fields.get(postings.term);
+            if (expected == null || expected != postings.fieldsOf(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Postings> exact(String word) {
+        Postings postings = terms.get(word);
+        return postings != null ? List.of(postings) : List.of();
+    }
+
+    private Postings newTerm(String term) {
+        expansions.clear();
+        return new Postings(term);
+    }
+
+    // The word itself and the most frequent longer terms starting with it, picked with a min-heap on the size
+    // rather than sorting every term with the prefix (a two letter prefix has hundreds). Remembered, as typing
+    // repeats the same prefixes; which terms are the most frequent is only refreshed once the terms change
+    private List<Postings> expand(String prefix) {
+        List<Postings> cached = expansions.get(prefix);
+        if (cached != null) {
+            return cached;
+        }
+        PriorityQueue<Postings> longer = new PriorityQueue<>(Comparator.comparingInt((Postings postings) -> postings.size));
+        for (Postings postings : terms.subMap(prefix, false, prefix + Character.MAX_VALUE, false).values()) {
+            if (longer.size() < maxExpansions - 1) {
+                longer.add(postings);
+            } else if (!longer.isEmpty() && postings.size > longer.peek().size) {
+                longer.poll();
+                longer.add(postings);
+            }
+        }
+        List<Postings> matches = new ArrayList<>(exact(prefix));
+        matches.addAll(longer);
+        if (expansions.size() >= MAX_CACHED_PREFIXES) {
+            expansions.clear();
+        }
+        expansions.put(prefix, matches);
+        return matches;
+    }
+
+    // Every item of a query scores the sum of the lists it is in, one per word, so the combinations of lists
+    // are taken best score first and the items of each are the intersection of its lists, in id order. Once
+    // the page is full and its last hit ranks above a combination, the rest cannot make it and the search
+    // stops; the total then only counts the matches seen so far
+    private static Hits collect(QueryTerm[] queryTerms, int offset, int limit) {
+        TopHits top = new TopHits(offset + limit);
+        // a prefix can match an item through several terms, its first combination scores best
+        SeenIds seen = Arrays.stream(queryTerms).anyMatch(term -> term.postings > 1) ? new SeenIds() : null;
+        long total = 0;
+        boolean exhausted = true;
+        Combinations combinations = new Combinations(queryTerms);
+        Slice[] lists = new Slice[queryTerms.length];
+        int[] positions = new int[queryTerms.length];
+        for (int[] combination = combinations.next(); combination != null; combination = combinations.next()) {
+            double score = 0;
+            for (int i = 0; i < queryTerms.length; i++) {
+                lists[i] = queryTerms[i].slices[combination[i]];
+                score += lists[i].score;
+            }
+            if (top.full() && top.beats(score, 0)) {
+                exhausted = false;
+                break;
+            }
+            // the shortest list drives, the others are looked up in their bitmap or galloped through
+            Arrays.sort(lists, Comparator.comparingInt(Slice::size));
+            Arrays.fill(positions, 0);
+            int next = 0;
+            intersect:
+            while (next < lists[0].size) {
+                long id = lists[0].ids[next];
+                if (top.full() && top.beats(score, id)) {
+                    exhausted = false;
+                    break;
+                }
+                for (int i = 1; i < lists.length; i++) {
+                    if (lists[i].bits != null) {
+                        if (!lists[i].contains(id)) {
+                            next++;
+                            continue intersect;
+                        }
+                        continue;
+                    }
+                    positions[i] = lists[i].seek(positions[i], id);
+                    if (positions[i] == lists[i].size) {
+                        break intersect;
+                    }
+                    if (lists[i].ids[positions[i]] > id) {
+                        next = lists[0].seek(next + 1, lists[i].ids[positions[i]]);
+                        continue intersect;
+                    }
+                }
+                if (seen == null || seen.add(id)) {
+                    total++;
+                    top.offer(id, score);
+                }
+                next++;
+            }
+        }
+        if (queryTerms.length == 1 && seen == null) {
+            // one posting list, every item in it matches
+            return new Hits(queryTerms[0].frequency, true, top.page(offset));
+        }
+        return new Hits(total, exhausted, top.page(offset));
+    }
+
+    private static double weight(int fields) {
+        return ((fields & NAME) != 0 ? NAME_WEIGHT : 0) + ((fields & DESCRIPTION) != 0 ? 1 : 0);
+    }
+
+    private List<Document> tokenize(List<ItemText> texts) {
+        List<Document> tokenized = new ArrayList<>(texts.size());
+        for (ItemText text : texts) {
+            Map<String, Integer> fields = tokenize(text.name(), text.description());
+            if (!fields.isEmpty()) {
+                tokenized.add(new Document(text.id(), fields));
+            }
+        }
+        return tokenized;
+    }
+
+    // term -> NAME / DESCRIPTION bits, in order of first occurrence
+    static Map<String, Integer> tokenize(String name, String description) {
+        Map<String, Integer> fields = new LinkedHashMap<>();
+        tokenize(name, NAME, fields);
+        tokenize(description, DESCRIPTION, fields);
+        return fields;
+    }
+
+    private static void tokenize(String text, int field, Map<String, Integer> fields) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String term = text.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH)).toLowerCase(Locale.ROOT);
+                fields.merge(term, field, (a, b) -> a | b);
+                start = -1;
+            }
+        }
+    }
+
+    private record Document(long id, Map<String, Integer> fields) {
+    }
+
+    // The items of one term, one id sorted list per field combination (index fields - 1): all items of a
+    // list score the same for the term. A list holding at least one in DENSE ids also gets a bitmap of
+    // them, no larger than the list, so intersecting a short list with it is a bit test per item
+    private static final class Postings {
+        private final String term;
+        private final long[][] ids = {new long[4], new long[4], new long[4]};
+        private final BitSet[] bits = new BitSet[3];
+        private final int[] sizes = new int[3];
+        private int size;
+
+        private Postings(String term) {
+            this.term = term;
+        }
+
+        private void append(long id, int fields) {
+            int list = fields - 1;
+            if (sizes[list] == ids[list].length) {
+                ids[list] = Arrays.copyOf(ids[list], sizes[list] * 2);
+            }
+            ids[list][sizes[list]++] = id;
+            size++;
+        }
+
+        private void sort() {
+            for (int list = 0; list < ids.length; list++) {
+                Arrays.sort(ids[list], 0, sizes[list]);
+                ids[list] = Arrays.copyOf(ids[list], sizes[list]);
+                index(list);
+            }
+        }
+
+        private void insert(long id, int fields) {
+            remove(id);
+            int list = fields - 1;
+            int index = -(Arrays.binarySearch(ids[list], 0, sizes[list], id) + 1);
+            if (sizes[list] == ids[list].length) {
+                ids[list] = Arrays.copyOf(ids[list], Math.max(4, sizes[list] + (sizes[list] >> 1)));
+            }
+            System.arraycopy(ids[list], index, ids[list], index + 1, sizes[list] - index);
+            ids[list][index] = id;
+            sizes[list]++;
+            size++;
+            if (bits[list] != null && id <= Integer.MAX_VALUE) {
+                bits[list].set((int) id);
+            } else if (bits[list] != null || Integer.bitCount(sizes[list]) == 1) {
+                // past int ids, or checked again whenever the list doubles
+                index(list);
+            }
+        }
+
+        private void remove(long id) {
+            for (int list = 0; list < ids.length; list++) {
+                int index = Arrays.binarySearch(ids[list], 0, sizes[list], id);
+                if (index >= 0) {
+                    System.arraycopy(ids[list], index + 1, ids[list], index, sizes[list] - index - 1);
+                    sizes[list]--;
+                    size--;
+                    if (bits[list] != null) {
+                        bits[list].clear((int) id);
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void index(int list) {
+            int count = sizes[list];
+            long last = count > 0 ? ids[list][count - 1] : 0;
+            bits[list] = null;
+            if (count >= MIN_DENSE && last <= Integer.MAX_VALUE && count * DENSE >= last) {
+                bits[list] = new BitSet((int) last + 1);
+                for (int i = 0; i < count; i++) {
+                    bits[list].set((int) ids[list][i]);
+                }
+            }
+        }
+
+        private int fieldsOf(long id) {
+            for (int list = 0; list < ids.length; list++) {
+                if (Arrays.binarySearch(ids[list], 0, sizes[list], id) >= 0) {
+                    return list + 1;
+                }
+            }
+            return 0;
+        }
+    }
+
+    // one list of a posting with the score its items get for the term, and its bitmap when dense
+    private record Slice(long[] ids, BitSet bits, int size, double score) {
+
+        private boolean contains(long id) {
+            return id <= Integer.MAX_VALUE && bits.get((int) id);
+        }
+
+        // first position from the given one holding an id not below the given id: a few steps along, as the
+        // lists of a query are mostly of similar length, then galloping ahead
+        private int seek(int from, long id) {
+            for (int stop = Math.min(size, from + 8); from < stop; from++) {
+                if (ids[from] >= id) {
+                    return from;
+                }
+            }
+            int to = from;
+            int step = 1;
+            while (to < size && ids[to] < id) {
+                from = to + 1;
+                to += step;
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(ids, from, Math.min(to + 1, size), id);
+            return index >= 0 ? index : -(index + 1);
+        }
+    }
+
+    // one word of a query: the lists of its terms (several for a prefix), best scoring first
+    private static final class QueryTerm {
+        private final Slice[] slices;
+        private final int postings;
+        private final long frequency;
+
+        private QueryTerm(List<Postings> matches, int items) {
+            List<Slice> slices = new ArrayList<>();
+            long frequency = 0;
+            for (Postings match : matches) {
+                double idf = Math.log(1 + (double) items / match.size);
+                for (int list = 0; list < match.ids.length; list++) {
+                    if (match.sizes[list] > 0) {
+                        slices.add(new Slice(match.ids[list], match.bits[list], match.sizes[list], idf * weight(list + 1)));
+                    }
+                }
+                frequency += match.size;
+            }
+            slices.sort(Comparator.comparingDouble(Slice::score).reversed());
+            this.slices = slices.toArray(new Slice[0]);
+            this.postings = matches.size();
+            this.frequency = frequency;
+        }
+    }
+
+    // One list per query word, best total score first: from the best combination on, every one taken
+    // out adds the ones a list further in the words after the last one it moved (so each comes once)
+    private static final class Combinations {
+        private final QueryTerm[] queryTerms;
+        private final PriorityQueue<Combination> queue =
+                new PriorityQueue<>(Comparator.comparingDouble(Combination::score).reversed());
+
+        private Combinations(QueryTerm[] queryTerms) {
+            this.queryTerms = queryTerms;
+            offer(new int[queryTerms.length], 0);
+        }
+
+        private int[] next() {
+            Combination combination = queue.poll();
+            if (combination == null) {
+                return null;
+            }
+            for (int i = combination.moved(); i < queryTerms.length; i++) {
+                if (combination.lists()[i] + 1 < queryTerms[i].slices.length) {
+                    int[] lists = combination.lists().clone();
+                    lists[i]++;
+                    offer(lists, i);
+                }
+            }
+            return combination.lists();
+        }
+
+        private void offer(int[] lists, int moved) {
+            double score = 0;
+            for (int i = 0; i < lists.length; i++) {
+                score += queryTerms[i].slices[lists[i]].score;
+            }
+            queue.add(new Combination(lists, moved, score));
+        }
+    }
+
+    private record Combination(int[] lists, int moved, double score) {
+    }
+
+    // open addressing set of the ids a query has seen, ids are positive so 0 marks a free slot
+    private static final class SeenIds {
+        private long[] table = new long[64];
+        private int size;
+
+        private boolean add(long id) {
+            if (size * 2 >= table.length) {
+                long[] old = table;
+                table = new long[old.length * 2];
+                size = 0;
+                for (long existing : old) {
+                    if (existing != 0) {
+                        add(existing);
+                    }
+                }
+            }
+            int mask = table.length - 1;
+            for (int slot = Long.hashCode(id * 0x9E3779B97F4A7C15L) & mask; ; slot = (slot + 1) & mask) {
+                if (table[slot] == id) {
+                    return false;
+                }
+                if (table[slot] == 0) {
+                    table[slot] = id;
+                    size++;
+                    return true;
+                }
+            }
+        }
+    }
+
+    // the best offset + limit hits seen so far, as a min-heap on (score, -id)
+    private static final class TopHits {
+        private final long[] ids;
+        private final double[] scores;
+        private int size;
+
+        private TopHits(int capacity) {
+            this.ids = new long[capacity];
+            this.scores = new double[capacity];
+        }
+
+        private void offer(long id, double score) {
+            if (size < ids.length) {
+                ids[size] = id;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (ids.length > 0 && worse(0, id, score)) {
+                ids[0] = id;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        private boolean full() {
+            return size == ids.length;
+        }
+
+        // whether every hit kept ranks above the given one, so it would not make the page
+        private boolean beats(double score, long id) {
+            return size == 0 || scores[0] > score || (scores[0] == score && ids[0] < id);
+        }
+
+        private List<Hit> page(int offset) {
+            List<Hit> sorted = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                sorted.add(new Hit(ids[i], scores[i]));
+            }
+            sorted.sort(Comparator.comparingDouble(Hit::score).reversed().thenComparingLong(Hit::id));
+            return offset >= sorted.size() ? List.of() : sorted.subList(offset, sorted.size());
+        }
+
+        // whether the hit at index ranks below the given one
+        private boolean worse(int index, long id, double score) {
+            return scores[index] < score || (scores[index] == score && ids[index] > id);
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!worse(index, ids[parent], scores[parent])) {
+                    return;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int lowest = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (worse(child, ids[lowest], scores[lowest])) {
+                        lowest = child;
+                    }
+                }
+                if (lowest == index) {
+                    return;
+                }
+                swap(lowest, index);
+                index = lowest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
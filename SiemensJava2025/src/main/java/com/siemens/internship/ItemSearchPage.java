@@ -0,0 +1,8 @@
+package com.siemens.internship;
+
+import java.util.List;
+
+// one page of GET /api/items/search, best match first; total counts every matching item when totalExact,
+// otherwise it is a lower bound as the search stopped once the page was settled
+public record ItemSearchPage(String query, long total, boolean totalExact, int offset, int limit, List<ItemSearchHit> hits) {
+}
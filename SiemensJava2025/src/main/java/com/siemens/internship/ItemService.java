@@ -1,38 +1,377 @@
 package com.siemens.internship;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 public class ItemService {
+    private static final Logger log = LoggerFactory.getLogger(ItemService.class);
+    // failed chunks logged one by one per run, the rest only show up in the run summary and the metrics
+    private static final int MAX_LOGGED_ERRORS = 10;
+    // length of the ProcessingFailure.lastError column
+    private static final int MAX_ERROR_LENGTH = 255;
+    // checkpoint row of the chunked processing runs
+    static final String PROCESSING_CHECKPOINT = "item-processing";
+
     @Autowired
     private ItemRepository itemRepository;
-    private static ExecutorService executor = Executors.newFixedThreadPool(10);
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private ItemCache itemCache;
+    @Autowired
+    private ItemTaskExecutor itemTaskExecutor;
+    @Autowired
+    private ItemMetrics itemMetrics;
+    @Autowired
+    private ProcessingCheckpointRepository checkpointRepository;
+    @Autowired
+    private WorkLeaseService workLeaseService;
+    @Autowired
+    private ItemPipeline itemPipeline;
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+    @Autowired
+    private ProcessingFailureRepository failureRepository;
+    @Autowired
+    private ItemChangeTracker itemChangeTracker;
+
+    @Value("${item.processing.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${item.processing.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${item.processing.bulk.max-returned-ids:10000}")
+    private int maxReturnedIds;
+
+    @Value("${item.processing.watermark-lag:PT5S}")
+    private Duration watermarkLag;
+
+    @Value("${item.processing.leases.enabled:false}")
+    private boolean leasesEnabled;
+
+    @Value("${item.processing.max-failed-ids:100}")
+    private int maxFailedIds;
 
-    //processedItems and processedCount represent shared state accessed by multiple threads in order to avoid race condition and inconsistent results I used Collections.synchronizedList and AtomicInteger to safely update shared states
-    private List<Item> processedItems = Collections.synchronizedList(new ArrayList<>()) ;
-    private AtomicInteger processedCount = new AtomicInteger();
+    @Value("${item.processing.max-item-attempts:3}")
+    private int maxItemAttempts;
 
+    // The results of a processing run are kept on its ProcessingJob (counts and a capped list of failed ids),
+    // not in fields of this singleton, so nothing grows with the number of runs; the updated items themselves
+    // are paged out of the database on request, see findProcessedPage.
 
-    public List<Item> findAll() {
-        return itemRepository.findAll();
+    // projections instead of entities: nothing is registered in the persistence context, and the
+    // read-only transaction lets Hibernate skip the flush at commit
+    @Transactional(readOnly = true)
+    public List<ItemView> findAllViews() {
+        return itemRepository.findAllViews();
     }
 
+    // The views of findAllViews one at a time off a database cursor, fetched from the driver in fetch-size
+    // batches: memory stays flat whatever the row count, and no entity ends up in the persistence context
+    @Transactional(readOnly = true)
+    public void streamAllViews(Consumer<ItemView> action) {
+        try (Stream<ItemView> views = itemRepository.streamAllViews()) {
+            views.forEach(action);
+        }
+    }
+
+    /**
+     * Keyset page of items with an id greater than {@code after} (all items when null), optionally
+     * restricted to a status and/or an email. One extra row is read to tell whether another page follows.
+     * The items are read as ItemView projections, so none of them is managed by the persistence context.
+     */
+    @Transactional(readOnly = true)
+    public ItemPage findPage(Long after, int limit, String status, String email) {
+        long cursor = after != null ? after : Long.MIN_VALUE;
+        Pageable page = PageRequest.of(0, limit + 1);
+
+        List<ItemView> items;
+        if (status != null && email != null) {
+            items = itemRepository.findViewsByStatusAndEmailAndIdGreaterThanOrderByIdAsc(status, email, cursor, page);
+        } else if (status != null) {
+            items = itemRepository.findViewsByStatusAndIdGreaterThanOrderByIdAsc(status, cursor, page);
+        } else if (email != null) {
+            items = itemRepository.findViewsByEmailAndIdGreaterThanOrderByIdAsc(email, cursor, page);
+        } else {
+            items = itemRepository.findViewsByIdGreaterThan(cursor, page);
+        }
+        return ItemPage.of(items, limit);
+    }
+
+    // served from the item cache when possible, the repository is only asked on a miss
     public Optional<Item> findById(Long id) {
-        return itemRepository.findById(id);
+        return itemCache.get(id, key -> itemMetrics.timeRepository("findById", () -> itemRepository.findById(key)));
+    }
+
+    // version of an item for conditional GETs: taken from the cache when it holds the item, otherwise
+    // the version column is read on its own
+    public Optional<Long> findVersion(Long id) {
+        Optional<Item> cached = itemCache.getIfPresent(id);
+        if (cached.isPresent()) {
+            return Optional.ofNullable(cached.get().getVersion());
+        }
+        return itemRepository.findVersionById(id);
+    }
+
+    // no scan: H2 answers a COUNT(*) without a WHERE from the row count it keeps, the counter is one row
+    public ItemsVersion itemsVersion() {
+        return new ItemsVersion(itemRepository.count(), itemChangeTracker.current());
+    }
+
+    // Ranked page of the items containing every word of the query, the last one also as a prefix (see
+    // ItemSearchIndex), empty while the index is being built. Only the items of the page are read, in one query
+    public Optional<ItemSearchPage> search(String query, int offset, int limit) {
+        long started = System.nanoTime();
+        Optional<ItemSearchIndex.Hits> found = itemSearchIndex.search(query, offset, limit);
+        itemMetrics.recordSearch(System.nanoTime() - started);
+        return found.map(hits -> {
+            if (hits.hits().isEmpty()) {
+                return new ItemSearchPage(query, hits.total(), hits.totalExact(), offset, limit, List.of());
+            }
+            Map<Long, ItemView> views = new HashMap<>();
+            for (ItemView view : itemRepository.findViewsByIdIn(hits.hits().stream().map(ItemSearchIndex.Hit::id).toList())) {
+                views.put(view.id(), view);
+            }
+            // an item deleted since it was found is left out
+            List<ItemSearchHit> page = hits.hits().stream()
+                    .filter(hit -> views.containsKey(hit.id()))
+                    .map(hit -> new ItemSearchHit(views.get(hit.id()), hit.score()))
+                    .toList();
+            return new ItemSearchPage(query, hits.total(), hits.totalExact(), offset, limit, page);
+        });
     }
 
     public Item save(Item item) {
-        return itemRepository.save(item);
+        item.setModifiedAt(Instant.now());
+        Item saved = itemMetrics.timeRepository("save", () -> itemRepository.save(item));
+        itemCache.put(saved);
+        itemSearchIndex.put(saved);
+        itemChangeTracker.itemsChanged();
+        return saved;
+    }
+
+    /**
+     * Validates every element and inserts the valid ones in a single transaction; the inserts are
+     * sent as JDBC batches and the ids come from the pooled item sequence. Ids sent by the client are ignored.
+     */
+    @Transactional
+    public BatchResult createAll(List<Item> items) {
+        List<BatchError> errors = new ArrayList<>();
+        List<Item> valid = new ArrayList<>();
+        Instant now = Instant.now();
+        boolean[] validEmails = EmailValidator.validateAll(
+                items.stream().map(item -> item != null ? item.getEmail() : null).toList());
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            if (item == null) {
+                errors.add(new BatchError(i, "item is missing"));
+                continue;
+            }
+            if (!validEmails[i]) {
+                errors.add(new BatchError(i, "invalid email"));
+                continue;
+            }
+            item.setId(null);
+            item.setVersion(null);
+            item.setModifiedAt(now);
+            valid.add(item);
+        }
+
+        List<Item> saved = itemRepository.saveAll(valid);
+        afterCommit(() -> {
+            saved.forEach(itemCache::put);
+            saved.forEach(itemSearchIndex::put);
+        });
+        if (!saved.isEmpty()) {
+            itemChangeTracker.itemsChanged();
+        }
+        return new BatchResult(saved, errors);
+    }
+
+    /**
+     * Updates existing items in a single transaction. All targets are loaded with one IN query and the
+     * new values are copied onto the managed entities, so the changes are flushed as JDBC batches
+     * without a select per item. Unknown and duplicate ids, and elements whose version no longer matches,
+     * are reported per element.
+     */
+    @Transactional
+    public BatchResult updateAll(List<Item> items) {
+        List<BatchError> errors = new ArrayList<>();
+        Map<Long, Integer> indexById = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            String error = validateBatchElement(item);
+            if (error == null && item.getId() == null) {
+                error = "id is required";
+            }
+            if (error == null && indexById.putIfAbsent(item.getId(), i) != null) {
+                error = "duplicate id " + item.getId();
+            }
+            if (error != null) {
+                errors.add(new BatchError(i, error));
+            }
+        }
+
+        Map<Long, Item> existing = new HashMap<>();
+        for (Item item : itemRepository.findAllById(indexById.keySet())) {
+            existing.put(item.getId(), item);
+        }
+
+        List<Item> updated = new ArrayList<>();
+        Instant now = Instant.now();
+        for (Map.Entry<Long, Integer> entry : indexById.entrySet()) {
+            Item target = existing.get(entry.getKey());
+            if (target == null) {
+                errors.add(new BatchError(entry.getValue(), "item " + entry.getKey() + " not found"));
+                continue;
+            }
+            Item source = items.get(entry.getValue());
+            if (source.getVersion() != null && !source.getVersion().equals(target.getVersion())) {
+                errors.add(new BatchError(entry.getValue(), "item " + entry.getKey() + " was modified concurrently"));
+                continue;
+            }
+            target.setName(source.getName());
+            target.setDescription(source.getDescription());
+            target.setStatus(source.getStatus());
+            target.setEmail(source.getEmail());
+            target.setModifiedAt(now);
+            updated.add(target);
+        }
+        errors.sort(Comparator.comparingInt(BatchError::index));
+
+        itemRepository.saveAll(updated);
+        afterCommit(() -> {
+            updated.forEach(itemCache::put);
+            updated.forEach(itemSearchIndex::put);
+        });
+        if (!updated.isEmpty()) {
+            itemChangeTracker.itemsChanged();
+        }
+        return new BatchResult(updated, errors);
+    }
+
+    // same rules as a single create; null when the element can be written
+    private String validateBatchElement(Item item) {
+        if (item == null) {
+            return "item is missing";
+        }
+        if (!item.validate(item.getEmail())) {
+            return "invalid email";
+        }
+        return null;
+    }
+
+    /**
+     * Overwrites the content of an existing item with one UPDATE statement, without reading it first.
+     * When the item carries a version the update only applies if the stored row still has it, otherwise it
+     * is CONFLICT; the extra existence check is only made when nothing was updated.
+     * The returned item carries the new version: the expected one plus one, or without an expected version
+     * the one read back right after the UPDATE, in the same transaction.
+     */
+    @Transactional
+    public ItemWriteResult update(Long id, Item item) {
+        Long expected = item.getVersion();
+        Instant now = Instant.now();
+        int updated = expected == null
+                ? itemRepository.updateContent(id, item.getName(), item.getDescription(), item.getStatus(), item.getEmail(), now)
+                : itemRepository.updateContentIfVersion(id, expected, item.getName(), item.getDescription(), item.getStatus(), item.getEmail(), now);
+        afterCommit(() -> itemCache.invalidate(id));
+
+        if (updated == 0) {
+            return new ItemWriteResult(failedWriteOutcome(id, expected), null);
+        }
+        item.setId(id);
+        if (expected != null) {
+            item.setVersion(expected + 1);
+        } else {
+            // the row lock taken by the UPDATE holds until commit, so nobody changes the version in between
+            item.setVersion(itemRepository.findVersionById(id).orElse(null));
+        }
+        item.setModifiedAt(now);
+        afterCommit(() -> itemSearchIndex.put(item));
+        itemChangeTracker.itemsChanged();
+        return new ItemWriteResult(WriteOutcome.DONE, item);
+    }
+
+    // single DELETE statement, conditional on the version when one is given
+    @Transactional
+    public WriteOutcome delete(Long id, Long expectedVersion) {
+        int deleted = expectedVersion == null
+                ? itemRepository.deleteItem(id)
+                : itemRepository.deleteItemIfVersion(id, expectedVersion);
+        afterCommit(() -> itemCache.invalidate(id));
+        if (deleted == 0) {
+            return failedWriteOutcome(id, expectedVersion);
+        }
+        afterCommit(() -> itemSearchIndex.remove(id));
+        itemChangeTracker.itemsChanged();
+        return WriteOutcome.DONE;
+    }
+
+    // Runs the action once the current transaction has committed, right away when there is none. The cache
+    // and the search index must not show rows that are rolled back in the end, nor the cache be refilled
+    // with the old row by a read made before the commit
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private WriteOutcome failedWriteOutcome(Long id, Long expectedVersion) {
+        if (expectedVersion != null && itemRepository.existsById(id)) {
+            return WriteOutcome.CONFLICT;
+        }
+        return WriteOutcome.NOT_FOUND;
     }
 
     public void deleteById(Long id) {
         itemRepository.deleteById(id);
+        itemCache.invalidate(id);
+        itemSearchIndex.remove(id);
+        itemChangeTracker.itemsChanged();
+    }
+
+    public ItemCacheStats cacheStats() {
+        return itemCache.stats();
     }
 
 
@@ -68,45 +407,433 @@ public class ItemService {
 
     // removed th Async annotation because the method will block until all the items are processed
     // from the caller perspective the method is no longer asynchronous
-    public List<Item> processItemsAsync() {
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        List<Long> itemIds = itemRepository.findAllIds();
+    //
+    // Items are no longer loaded and saved one id at a time (2N+1 round trips). The table is walked in
+    // keyset-paginated chunks of item.processing.chunk-size rows; each chunk is read, processed in memory and
+    // written back in its own transaction, so the changed rows reach the database as JDBC batches on flush.
+    // What happens to the items in between is up to the stages of the ItemPipeline, by default MarkProcessedStage.
+    // The chunks run in parallel on the Spring managed ItemTaskExecutor with a bounded number in flight.
+    // Only the items modified since the last complete run are read, see processChunks.
+    // Returns the summary of the run instead of the updated items.
+    public ProcessingJobStatus processItemsAsync() {
+        return processItemsAsync(false);
+    }
+
+    public ProcessingJobStatus processItemsAsync(boolean fullRescan) {
+        return processItems(new ProcessingJob(fullRescan));
+    }
+
+    // synchronous run reporting through the given job, used by GET /api/items/process
+    public ProcessingJobStatus processItems(ProcessingJob job) {
+        try {
+            processChunks(job);
+        } catch (RuntimeException e) {
+            job.fail(e);
+            throw e;
+        }
+        job.complete();
+        return job.status();
+    }
+
+    /**
+     * Keyset page of the items updated by the given run, in id order: the ones still carrying the
+     * modifiedAt the run stamped them with, so an item changed again since then is no longer listed.
+     * Empty for a run that has not started yet. In lease mode every instance taking part in a round stamps
+     * its items with the same time, so only the id ranges this run claimed are read, one after the other.
+     */
+    @Transactional(readOnly = true)
+    public ItemPage findProcessedPage(ProcessingJob job, Long after, int limit) {
+        if (job.getUntil() == null) {
+            return new ItemPage(List.of(), null);
+        }
+        long cursor = after != null ? after : Long.MIN_VALUE;
+        List<ProcessingJob.Range> ranges = job.getRanges();
+        List<ItemView> items;
+        if (ranges == null) {
+            items = itemRepository.findViewsByModifiedAtAndIdGreaterThanOrderByIdAsc(job.getUntil(), cursor, PageRequest.of(0, limit + 1));
+        } else {
+            items = new ArrayList<>();
+            for (ProcessingJob.Range range : ranges) {
+                if (range.last() <= cursor) {
+                    continue;
+                }
+                items.addAll(itemRepository.findViewsByModifiedAtAndIdGreaterThanAndIdLessThanEqualOrderByIdAsc(job.getUntil(),
+                        Math.max(cursor, range.after()), range.last(), PageRequest.of(0, limit + 1 - items.size())));
+                if (items.size() > limit) {
+                    break;
+                }
+            }
+        }
+        return ItemPage.of(items, limit);
+    }
+
+    /**
+     * Background variant used by {@code POST /api/items/process}: runs on Spring's async executor and
+     * reports progress through the given job, which is registered before the call so it can be polled
+     * and cancelled while this runs. The returned future completes once the job has finished.
+     */
+    @Async
+    public CompletableFuture<ProcessingJob> processItemsInBackground(ProcessingJob job) {
+        try {
+            processChunks(job);
+            job.complete();
+            return CompletableFuture.completedFuture(job);
+        } catch (Exception e) {
+            log.error("Processing job {} failed: {}", job.getId(), e.getMessage());
+            itemMetrics.recordError(e);
+            job.fail(e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Unless the job asks for a full rescan, a run only reads the items modified since the watermark of
+    // the processing checkpoint, walking them in (modifiedAt, id) order, so a run over a mostly unchanged
+    // table costs O(changes) instead of O(table). Without a checkpoint every item is read by id range.
+    // The items a run updates are stamped with its start time and rows written after it started are left
+    // for the next run; once every chunk made it the start time becomes the new watermark. Items that fail are
+    // dead-lettered (ProcessingFailure) and hold the watermark back for item.processing.max-item-attempts runs,
+    // after which they stay parked there and the watermark moves past them. The next run
+    // reads from item.processing.watermark-lag before it, so a write stamped just before the run started
+    // but committed after the reader went past it is still picked up.
+    //
+    // With item.processing.leases.enabled the instances sharing the database split the run: each one joins
+    // the open processing round (with its window) and works on the id ranges it manages to lease, see
+    // WorkLeaseService. The watermark then moves once the last range of the round is done, by whichever
+    // instance finishes it.
+    private void processChunks(ProcessingJob job) {
+        // at the precision the column stores, so the rows stamped by this run compare equal to the bound
+        Instant runStarted = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        Instant since = job.isFullRescan() ? null : checkpointRepository.findById(PROCESSING_CHECKPOINT)
+                .map(checkpoint -> checkpoint.getWatermark().minus(watermarkLag))
+                .orElse(null);
+        WorkRound round = leasesEnabled ? workLeaseService.joinOrOpenRound(since, runStarted) : new WorkRound(since, runStarted);
+        if (job.isFullRescan() && round.since() != null) {
+            // the instances work on one round at a time, its window was set by whoever opened it
+            log.warn("Full rescan requested while a processing round of the items changed since {} is open, joining that round", round.since());
+            job.ignoreFullRescan();
+        }
+        job.start(round.since() == null ? itemRepository.count() : itemRepository.countByModifiedAtAfter(round.since()),
+                round.since(), round.until());
 
-        for (Long id : itemIds) {
+        AtomicInteger errors = new AtomicInteger();
+        ItemPipeline.Run pipelineRun = itemPipeline.newRun();
+        // dead-letter entries are only looked for when there are any
+        boolean clearFailures = failureRepository.count() > 0;
+        long started = System.nanoTime();
+        boolean complete;
+        try {
+            if (!leasesEnabled) {
+                complete = processRange(job, round, pipelineRun, clearFailures, Long.MIN_VALUE, Long.MAX_VALUE, errors, () -> true);
+            } else {
+                complete = false;
+                job.restrictToRanges();
+                // ranges this run gave back are left to the next run (or another instance), never retried in a loop here
+                Set<Long> givenBack = new HashSet<>();
+                Optional<WorkLease> lease;
+                while (!job.isCancelRequested() && (lease = workLeaseService.claimNext(givenBack)).isPresent()) {
+                    WorkLease claimed = lease.get();
+                    job.addRange(claimed.getRangeStart(), claimed.getRangeEnd());
+                    if (processRange(job, round, pipelineRun, clearFailures, claimed.getRangeStart(), claimed.getRangeEnd(), errors,
+                            () -> workLeaseService.renew(claimed))) {
+                        complete = workLeaseService.complete(claimed);
+                    } else {
+                        givenBack.add(claimed.getRangeStart());
+                        if (job.isCancelRequested()) {
+                            workLeaseService.release(claimed);
+                        } else {
+                            // failed items still to be retried; a no-op when the lease was lost to another instance
+                            workLeaseService.fail(claimed);
+                        }
+                    }
+                }
+            }
+        } finally {
+            long elapsedNanos = Math.max(1, System.nanoTime() - started);
+            long read = job.getProcessed() + job.getSkipped();
+            log.info("Processing run finished: {} items read, {} updated, {} failed ({} chunk errors) in {} ms ({} items/s)",
+                    read, job.getProcessed(), job.getFailed(), errors.get(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), read * 1_000_000_000L / elapsedNanos);
+            for (ItemPipeline.StageStats stage : pipelineRun.stats()) {
+                log.info("Stage {}: {} items, {} passed, {} dropped, {} failed in {} batches, {} ms busy ({} items/s)",
+                        stage.stage(), stage.items(), stage.passed(), stage.dropped(), stage.failed(), stage.batches(),
+                        TimeUnit.NANOSECONDS.toMillis(stage.busyNanos()), stage.itemsPerSecond());
+            }
+        }
+
+        // a cancelled run, or one with failed items that get another attempt, left items behind: the watermark stays
+        if (complete) {
+            advanceCheckpoint(round.until());
+        }
+    }
+
+    // Instances finishing the last ranges of a round at the same time may both get here and race on
+    // creating the checkpoint row; the loser retries as an update. The watermark never moves backwards
+    private void advanceCheckpoint(Instant watermark) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Optional<ProcessingCheckpoint> current = checkpointRepository.findById(PROCESSING_CHECKPOINT);
+                if (current.isPresent() && !current.get().getWatermark().isBefore(watermark)) {
+                    return;
+                }
+                checkpointRepository.save(new ProcessingCheckpoint(PROCESSING_CHECKPOINT, watermark, Instant.now()));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt > maxRetries) {
+                    throw e;
+                }
+            }
+        }
+    }
 
-            // used to reflect true async behavior
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                try {
+    // Walks the ids in (rangeStart, rangeEnd] of the round's window until they are exhausted, the job is
+    // cancelled or the range may no longer be worked on. This thread only reads the keys of each chunk and hands the chunk to the item task
+    // executor, which blocks it while max-in-flight chunks are being worked on, so the reader never gets
+    // further ahead of the workers than the connection pool can serve.
+    // Returns true when every item of the range was written back or has run out of attempts.
+    private boolean processRange(ProcessingJob job, WorkRound round, ItemPipeline.Run pipelineRun, boolean clearFailures,
+                                 long rangeStart, long rangeEnd, AtomicInteger errors, BooleanSupplier keepGoing) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        TransactionTemplate readTemplate = new TransactionTemplate(transactionManager);
+        readTemplate.setReadOnly(true);
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+        // failed items of the range that get another attempt, added to by the chunk workers
+        AtomicLong toRetry = new AtomicLong();
+        long cursor = rangeStart;
+        Instant modifiedCursor = round.since();
 
-                    Item item = itemRepository.findById(id).orElse(null);
-                    if (item == null) {
-                        return;
+        try {
+            while (true) {
+                if (job.isCancelRequested() || !keepGoing.getAsBoolean()) {
+                    return false;
+                }
+                List<Long> ids;
+                Supplier<List<Item>> chunkLoader;
+                if (round.since() == null) {
+                    ids = itemRepository.findIdsBetween(cursor, rangeEnd, PageRequest.of(0, chunkSize));
+                    if (ids.isEmpty()) {
+                        break;
+                    }
+                    long after = cursor;
+                    long last = ids.get(ids.size() - 1);
+                    chunkLoader = () -> itemRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(after, last);
+                    cursor = last;
+                } else {
+                    List<ItemKey> keys = itemRepository.findKeysModifiedBetween(round.since(), round.until(), rangeStart, rangeEnd,
+                            modifiedCursor, cursor, PageRequest.of(0, chunkSize));
+                    if (keys.isEmpty()) {
+                        break;
                     }
+                    ids = keys.stream().map(ItemKey::id).toList();
+                    chunkLoader = () -> itemRepository.findAllById(ids);
+                    ItemKey lastKey = keys.get(keys.size() - 1);
+                    modifiedCursor = lastKey.modifiedAt();
+                    cursor = lastKey.id();
+                }
+                long first = ids.get(0);
+                long last = ids.get(ids.size() - 1);
+
+                inFlight.add(itemTaskExecutor.submit(() -> processChunk(readTemplate, transactionTemplate, pipelineRun, chunkLoader, last, round.until()))
+                        .thenAccept(chunk -> toRetry.addAndGet(recordChunk(job, chunk, ids, clearFailures)))
+                        .exceptionally(e -> {
+                            // the chunk was rolled back, the other chunks carry on
+                            if (errors.incrementAndGet() <= MAX_LOGGED_ERRORS) {
+                                log.error("Error processing chunk of {} items from ID {} to ID {}: {}", ids.size(), first, last, e.getMessage());
+                            }
+                            itemMetrics.recordError(e);
+                            job.addFailed(ids, maxFailedIds);
+                            toRetry.addAndGet(recordFailures(ids, e.getMessage()));
+                            return null;
+                        }));
+                inFlight.removeIf(CompletableFuture::isDone);
+            }
+        } finally {
+            // whatever stopped the reader, the chunks already handed out are finished before returning
+            CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+        }
+        return toRetry.get() == 0;
+    }
+
+    // Runs on the item task executor. The chunk is read in a short read-only transaction and its items come
+    // out of it detached; the pipeline stages then run with no transaction open and no connection held, however
+    // long a stage takes. The items they pass on are written back in a second transaction: the current rows are
+    // loaded with one query, so saveAll merges onto them without a read per item, and the merge fails on the
+    // version check for an item written concurrently (user PUT, another run) since the chunk was read. The chunk
+    // is then read and processed again, up to item.processing.max-retries times. Items failing in a stage, or
+    // deleted in the meantime, are left out of the write.
+    private ChunkResult processChunk(TransactionTemplate readTemplate, TransactionTemplate transactionTemplate,
+                                     ItemPipeline.Run pipelineRun, Supplier<List<Item>> chunkLoader, long last, Instant modifiedAt) {
+        long started = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            ChunkResult result = new ChunkResult(last);
+            List<Item> items = readTemplate.execute(status -> itemMetrics.timeRepository("findChunk", chunkLoader));
+            result.read = items.size();
+
+            long pipelineStarted = System.nanoTime();
+            ItemPipeline.Result processed = pipelineRun.process(items);
+            itemMetrics.recordItems(System.nanoTime() - pipelineStarted, items.size());
+            result.failedIds = processed.failedIds();
+
+            try {
+                if (!processed.passed().isEmpty()) {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        Set<Long> current = new HashSet<>();
+                        itemRepository.findAllById(processed.passed().stream().map(Item::getId).toList())
+                                .forEach(item -> current.add(item.getId()));
+                        List<Item> changed = new ArrayList<>(processed.passed().size());
+                        for (Item item : processed.passed()) {
+                            if (current.contains(item.getId())) {
+                                item.setModifiedAt(modifiedAt);
+                                changed.add(item);
+                            }
+                        }
+                        // flushed as one ordered JDBC batch on commit
+                        result.updated.addAll(itemRepository.saveAll(changed));
+                    });
+                }
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt > maxRetries) {
+                    throw e;
+                }
+                log.debug("Items of the chunk up to ID {} changed concurrently, retrying (attempt {})", last, attempt);
+                itemMetrics.recordRetry();
+                continue;
+            }
+            result.elapsedNanos = Math.max(1, System.nanoTime() - started);
+            itemMetrics.recordChunk(result.elapsedNanos);
+            return result;
+        }
+    }
+
+    // The chunk result was filled by the worker thread alone; its counts are added to the job once per chunk.
+    // Returns the failed items of the chunk that get another attempt
+    private long recordChunk(ProcessingJob job, ChunkResult chunk, List<Long> ids, boolean clearFailures) {
+        itemCache.invalidateAll(chunk.updated.stream().map(Item::getId).toList());
+        // a no-op unless a stage changed the name or description
+        chunk.updated.forEach(itemSearchIndex::put);
+        if (!chunk.updated.isEmpty()) {
+            itemChangeTracker.itemsChanged();
+        }
+        job.addProcessed(chunk.updated.size());
+        job.addSkipped(chunk.read - chunk.updated.size() - chunk.failedIds.size());
+        job.addFailed(chunk.failedIds, maxFailedIds);
+        if (clearFailures) {
+            // the items that made it this time are off the dead-letter list
+            Set<Long> failed = new HashSet<>(chunk.failedIds);
+            failureRepository.deleteAllByIdInBatch(ids.stream().filter(id -> !failed.contains(id)).toList());
+        }
+        long toRetry = recordFailures(chunk.failedIds, "failed in a pipeline stage");
 
-                    processedCount.incrementAndGet();
-                    System.out.println("Processed count: " + processedCount.get());
-                    if(!item.getStatus().equals("PROCESSED")){
-                        item.setStatus("PROCESSED");
-                        itemRepository.save(item);
-                        processedItems.add(item);
+        log.debug("Processed chunk of {} items ({} updated, {} failed) up to ID {} in {} ms ({} items/s)",
+                chunk.read, chunk.updated.size(), chunk.failedIds.size(), chunk.lastId,
+                TimeUnit.NANOSECONDS.toMillis(chunk.elapsedNanos), chunk.read * 1_000_000_000L / chunk.elapsedNanos);
+        return toRetry;
+    }
 
+    // Adds one failed attempt to the dead-letter entries of the items and returns how many of them get another
+    // attempt. When the entries cannot be written every item counts as one to retry, so the watermark stays
+    private long recordFailures(Collection<Long> ids, String error) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String lastError = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        Instant now = Instant.now();
+        try {
+            List<ProcessingFailure> failures = new TransactionTemplate(transactionManager).execute(status -> {
+                Map<Long, ProcessingFailure> known = new HashMap<>();
+                failureRepository.findAllById(ids).forEach(failure -> known.put(failure.getItemId(), failure));
+                List<ProcessingFailure> recorded = new ArrayList<>(ids.size());
+                for (Long id : ids) {
+                    ProcessingFailure failure = known.get(id);
+                    if (failure == null) {
+                        failure = new ProcessingFailure(id, 0, null, null);
+                        entityManager.persist(failure);
                     }
+                    failure.setAttempts(failure.getAttempts() + 1);
+                    failure.setLastError(lastError);
+                    failure.setLastFailedAt(now);
+                    recorded.add(failure);
+                }
+                return recorded;
+            });
+            long parked = failures.stream().filter(failure -> failure.getAttempts() == maxItemAttempts).count();
+            if (parked > 0) {
+                log.warn("Giving up on {} items after {} failed attempts, they stay in the processing failures", parked, maxItemAttempts);
+            }
+            return failures.stream().filter(failure -> failure.getAttempts() < maxItemAttempts).count();
+        } catch (RuntimeException e) {
+            log.error("Could not record {} failed items: {}", ids.size(), e.getMessage());
+            return ids.size();
+        }
+    }
 
-                    //Changed the InterruptedException to Exception to catch all exceptions missed before for example from itemRepository
-                } catch (Exception e) {
-                    System.out.println("Error processing item ID:  " + id + ": " +  e.getMessage());
+    /**
+     * Set-based alternative to {@link #processItemsAsync()}: instead of loading every item, the status
+     * change is applied with one UPDATE per id range of {@code rangeSize} ids, each range in its own short
+     * transaction so locks are held briefly and a failure only loses that range's work.
+     * With {@code returnIds} the affected ids of a range are selected in its transaction right before the
+     * update and returned, up to item.processing.bulk.max-returned-ids.
+     */
+    public BulkProcessResult processItemsInBulk(long rangeSize, boolean returnIds) {
+        long started = System.nanoTime();
+        Instant now = Instant.now();
+        Long min = itemRepository.findMinId();
+        Long max = itemRepository.findMaxId();
+        long updated = 0;
+        int ranges = 0;
+        List<Long> ids = new ArrayList<>();
+        boolean truncated = false;
 
+        if (min != null) {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            try {
+                for (long after = min - 1; after < max; after = rangeEnd(after, rangeSize, max)) {
+                    long from = after;
+                    long last = rangeEnd(after, rangeSize, max);
+                    List<Long> rangeIds = new ArrayList<>();
+                    Integer count = transactionTemplate.execute(status -> {
+                        if (returnIds) {
+                            rangeIds.addAll(itemRepository.findUnprocessedIdsInRange(from, last));
+                        }
+                        return itemRepository.markProcessedInRange(from, last, now);
+                    });
+                    updated += count != null ? count : 0;
+                    ranges++;
+
+                    int room = maxReturnedIds - ids.size();
+                    if (rangeIds.size() > room) {
+                        truncated = true;
+                    }
+                    ids.addAll(rangeIds.subList(0, Math.min(room, rangeIds.size())));
                 }
-            }, executor);
-            futures.add(future);
+            } finally {
+                // the update bypasses the entities, so no cached copy can be trusted any more
+                itemCache.invalidateAll();
+                itemChangeTracker.itemsChanged();
+            }
         }
 
-        CompletableFuture<Void> allDone = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("Bulk processing updated {} items in {} ranges in {} ms", updated, ranges, durationMillis);
+        return new BulkProcessResult(updated, ranges, durationMillis, returnIds ? ids : null, truncated);
+    }
 
-        //join is used to wait for all CompletableFutures to complete
-        allDone.join();
-        return processedItems;
+    // after + rangeSize capped at max, also when the sum would overflow (rangeSize is positive)
+    private static long rangeEnd(long after, long rangeSize, long max) {
+        long end = after + rangeSize;
+        return end < after || end > max ? max : end;
     }
 
-}
+    // outcome of a single chunk, only touched by the worker thread until its future completes
+    private static class ChunkResult {
+        private final long lastId;
+        private final List<Item> updated = new ArrayList<>();
+        private int read;
+        private List<Long> failedIds = List.of();
+        private long elapsedNanos;
 
+        private ChunkResult(long lastId) {
+            this.lastId = lastId;
+        }
+    }
+
+}
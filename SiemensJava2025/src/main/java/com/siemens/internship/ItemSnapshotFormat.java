@@ -0,0 +1,231 @@
+package com.siemens.internship;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binary item snapshot, written by {@link Writer} and read back by {@link Reader}.
+ * <pre>
+ * header   "ISNP" | version (1 byte) | flags (1 byte, FLAG_GZIP: everything after the header is gzipped)
+ * record   payload length (varint) | id (8 bytes) | name | description | status | email
+ * string   varint length + 1, 0 for null | UTF-8 bytes
+ * trailer  0 (varint) | record count (8 bytes)
+ * </pre>
+ * Records are length prefixed so a reader can skip fields appended by later versions, and the trailer
+ * count tells a complete snapshot from a truncated one.
+ */
+public final class ItemSnapshotFormat {
+    public static final int VERSION = 1;
+    public static final int FLAG_GZIP = 1;
+    private static final byte[] MAGIC = {'I', 'S', 'N', 'P'};
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Largest record a reader accepts. The four strings are varchar(255) columns, at most about 4 KB of UTF-8
+    // together, so this leaves ample room for appended fields while a corrupt length cannot make the reader
+    // allocate and wait for gigabytes
+    public static final int MAX_RECORD_BYTES = 1024 * 1024;
+    // the id, the only fixed-size field
+    private static final int MIN_RECORD_BYTES = 8;
+
+    private ItemSnapshotFormat() {
+    }
+
+    public static class Writer implements Closeable {
+        private final DataOutputStream out;
+        // the record being written, its length has to be known before it goes out
+        private byte[] record = new byte[256];
+        private int length;
+        private long count;
+
+        public Writer(OutputStream target, boolean compress) throws IOException {
+            target.write(MAGIC);
+            target.write(VERSION);
+            target.write(compress ? FLAG_GZIP : 0);
+            OutputStream body = compress ? new GZIPOutputStream(target, BUFFER_SIZE) : target;
+            this.out = new DataOutputStream(new BufferedOutputStream(body, BUFFER_SIZE));
+        }
+
+        public void write(Item item) throws IOException {
+            write(item.getId(), item.getName(), item.getDescription(), item.getStatus(), item.getEmail());
+        }
+
+        public void write(ItemView item) throws IOException {
+            write(item.id(), item.name(), item.description(), item.status(), item.email());
+        }
+
+        private void write(long id, String name, String description, String status, String email) throws IOException {
+            length = 0;
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                record[length++] = (byte) (id >>> shift);
+            }
+            putString(name);
+            putString(description);
+            putString(status);
+            putString(email);
+
+            writeVarint(out, length);
+            out.write(record, 0, length);
+            count++;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        private void putString(String value) {
+            if (value == null) {
+                ensure(1);
+                record[length++] = 0;
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(5 + bytes.length);
+            int size = bytes.length + 1;
+            while ((size & ~0x7F) != 0) {
+                record[length++] = (byte) ((size & 0x7F) | 0x80);
+                size >>>= 7;
+            }
+            record[length++] = (byte) size;
+            System.arraycopy(bytes, 0, record, length, bytes.length);
+            length += bytes.length;
+        }
+
+        private void ensure(int more) {
+            if (length + more > record.length) {
+                record = Arrays.copyOf(record, Math.max(record.length * 2, length + more));
+            }
+        }
+
+        // writes the trailer, a snapshot without it is rejected as truncated
+        @Override
+        public void close() throws IOException {
+            try (out) {
+                writeVarint(out, 0);
+                out.writeLong(count);
+            }
+        }
+    }
+
+    public static class Reader implements Closeable {
+        private final DataInputStream in;
+        private final boolean compressed;
+        private byte[] record = new byte[256];
+        private int position;
+        private int length;
+        private long count;
+
+        public Reader(InputStream source) throws IOException {
+            byte[] header = new byte[MAGIC.length + 2];
+            int read = source.readNBytes(header, 0, header.length);
+            if (read < header.length || !Arrays.equals(header, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+                throw new StreamCorruptedException("Not an item snapshot");
+            }
+            if (header[MAGIC.length] != VERSION) {
+                throw new StreamCorruptedException("Unsupported item snapshot version " + header[MAGIC.length]);
+            }
+            this.compressed = (header[MAGIC.length + 1] & FLAG_GZIP) != 0;
+            InputStream body = compressed ? new GZIPInputStream(source, BUFFER_SIZE) : source;
+            this.in = new DataInputStream(new BufferedInputStream(body, BUFFER_SIZE));
+        }
+
+        public boolean isCompressed() {
+            return compressed;
+        }
+
+        // the next item with its snapshot id, null after the last one
+        public Item next() throws IOException {
+            length = readVarint(in);
+            if (length == 0) {
+                long expected = in.readLong();
+                if (expected != count) {
+                    throw new StreamCorruptedException("Item snapshot holds " + count + " records, its trailer says " + expected);
+                }
+                return null;
+            }
+            if (length < MIN_RECORD_BYTES || length > MAX_RECORD_BYTES) {
+                throw new StreamCorruptedException("Item snapshot record " + (count + 1) + " has an invalid length of " + length + " bytes");
+            }
+            if (length > record.length) {
+                record = new byte[Math.max(record.length * 2, length)];
+            }
+            in.readFully(record, 0, length);
+            position = 0;
+
+            long id = 0;
+            for (int i = 0; i < 8; i++) {
+                id = (id << 8) | (record[position++] & 0xFF);
+            }
+            Item item = new Item(id, getString(), getString(), getString(), getString());
+            count++;
+            return item;
+        }
+
+        private String getString() throws IOException {
+            int size = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (position >= length || shift > 28) {
+                    throw new StreamCorruptedException("Malformed item snapshot record " + (count + 1));
+                }
+                byte b = record[position++];
+                size |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            if (size == 0) {
+                return null;
+            }
+            int bytes = size - 1;
+            if (bytes < 0 || bytes > length - position) {
+                throw new StreamCorruptedException("Malformed item snapshot record " + (count + 1));
+            }
+            String value = new String(record, position, bytes, StandardCharsets.UTF_8);
+            position += bytes;
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift <= 28; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Item snapshot is truncated");
+            }
+            // the fifth byte has room for the top 4 bits of an int only
+            if (shift == 28 && (b & 0x70) != 0) {
+                break;
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed item snapshot record length");
+    }
+}
@@ -0,0 +1,182 @@
+package com.siemens.internship;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Binary snapshots of the item table (see ItemSnapshotFormat) in item.snapshot.dir, for backups and for
+ * seeding other environments. A snapshot is written from keyset chunks of item.snapshot.chunk-size items,
+ * so the table is never held in memory, and only appears under its name once complete.
+ * A restore replaces the items with the ones of the snapshot, ids included, inserting them in JDBC
+ * batches of item.snapshot.chunk-size rows, all in one transaction with the delete.
+ */
+@Service
+public class ItemSnapshotService {
+    private static final Logger log = LoggerFactory.getLogger(ItemSnapshotService.class);
+    private static final String EXTENSION = ".isnp";
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]+\\" + EXTENSION);
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+    private static final String INSERT =
+            "INSERT INTO item (id, name, description, status, email, version, modified_at) VALUES (?, ?, ?, ?, ?, 0, ?)";
+
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ItemCache itemCache;
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+    @Autowired
+    private ItemChangeTracker itemChangeTracker;
+
+    @Value("${item.snapshot.dir:${java.io.tmpdir}/item-snapshots}")
+    private Path snapshotDir;
+
+    @Value("${item.snapshot.chunk-size:1000}")
+    private int chunkSize;
+
+    public SnapshotResult write(boolean compress) throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(snapshotDir);
+        String name = "items-" + TIMESTAMP.format(Instant.now()) + EXTENSION;
+        Path file = snapshotDir.resolve(name);
+        Path partial = snapshotDir.resolve(name + ".part");
+
+        long count;
+        try {
+            try (OutputStream out = Files.newOutputStream(partial);
+                 ItemSnapshotFormat.Writer writer = new ItemSnapshotFormat.Writer(out, compress)) {
+                long cursor = Long.MIN_VALUE;
+                List<ItemView> chunk;
+                do {
+                    // read as views, not entities: the persistence context of the request (open in view)
+                    // would otherwise keep every item written so far until the response is done
+                    chunk = itemRepository.findViewsByIdGreaterThan(cursor, PageRequest.of(0, chunkSize));
+                    for (ItemView item : chunk) {
+                        writer.write(item);
+                    }
+                    if (!chunk.isEmpty()) {
+                        cursor = chunk.get(chunk.size() - 1).id();
+                    }
+                } while (chunk.size() == chunkSize);
+                count = writer.getCount();
+            }
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+
+        SnapshotResult result = new SnapshotResult(name, count, Files.size(file), compress, millisSince(started));
+        log.info("Wrote snapshot {} of {} items, {} bytes in {} ms", name, count, result.bytes(), result.durationMillis());
+        return result;
+    }
+
+    // the file of a snapshot, empty for unknown names and names that are not snapshot file names
+    public Optional<Path> find(String name) {
+        if (!NAME.matcher(name).matches()) {
+            return Optional.empty();
+        }
+        Path file = snapshotDir.resolve(name);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    /**
+     * Deletes every item and inserts the ones of the snapshot with their ids, then moves the item sequence
+     * past the highest restored id. Ids this instance already reserved from the sequence before the restore
+     * are still handed out until its current block is used up, so the restore is meant for an idle instance.
+     * The file is read through once before anything is deleted: one that is not a complete snapshot
+     * throws StreamCorruptedException / EOFException and leaves the items as they are.
+     * <p>
+     * The delete and every insert batch run in one transaction, so a batch that cannot be inserted (e.g. a
+     * DataIntegrityViolationException for a snapshot holding the same id twice) rolls the whole restore back
+     * and the items stay as they were. The batches are therefore sent one after the other on the calling thread.
+     */
+    public SnapshotResult restore(Path file) throws IOException {
+        long started = System.nanoTime();
+        boolean compressed = verify(file);
+        Timestamp modifiedAt = Timestamp.from(Instant.now());
+        AtomicLong maxId = new AtomicLong(Long.MIN_VALUE);
+        long restored = new TransactionTemplate(transactionManager).execute(status -> {
+            try (InputStream in = Files.newInputStream(file);
+                 ItemSnapshotFormat.Reader reader = new ItemSnapshotFormat.Reader(in)) {
+                itemRepository.deleteAllInBatch();
+                long inserted = 0;
+                List<Object[]> batch = new ArrayList<>(chunkSize);
+                Item item;
+                while ((item = reader.next()) != null) {
+                    batch.add(new Object[]{item.getId(), item.getName(), item.getDescription(), item.getStatus(), item.getEmail(), modifiedAt});
+                    maxId.accumulateAndGet(item.getId(), Math::max);
+                    if (batch.size() == chunkSize) {
+                        jdbcTemplate.batchUpdate(INSERT, batch);
+                        inserted += batch.size();
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT, batch);
+                    inserted += batch.size();
+                }
+                return inserted;
+            } catch (IOException e) {
+                // verified above, so only the file changing in between gets here
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        if (restored > 0) {
+            // pooled-lo: the next block starts at the value read from the sequence. A sequence change is not
+            // rolled back, so it is only made once the rows are committed
+            jdbcTemplate.execute("ALTER SEQUENCE item_seq RESTART WITH " + (maxId.get() + 1));
+        }
+        itemCache.invalidateAll();
+        itemChangeTracker.itemsChanged();
+        // the inserts bypass ItemService, the index is rebuilt from the restored table
+        itemSearchIndex.rebuild();
+        SnapshotResult result = new SnapshotResult(file.getFileName().toString(), restored, Files.size(file), compressed, millisSince(started));
+        log.info("Restored {} items from snapshot {} in {} ms", result.items(), result.name(), result.durationMillis());
+        return result;
+    }
+
+    // returns whether the snapshot is compressed
+    private static boolean verify(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file);
+             ItemSnapshotFormat.Reader reader = new ItemSnapshotFormat.Reader(in)) {
+            while (reader.next() != null) {
+                // the reader checks the framing of every record and the count in the trailer
+            }
+            return reader.isCompressed();
+        }
+    }
+
+    private static long millisSince(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+}
@@ -0,0 +1,86 @@
+package com.siemens.internship;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Executor for item processing work with a hard limit on the tasks in flight. {@link #submit} blocks
+ * the submitting thread while the limit is reached, so a producer can never get further ahead of the
+ * workers than maxInFlight tasks; the limit is sized to the connection pool so the workers never
+ * queue up waiting for a connection.
+ * Runs either on a fixed platform thread pool or on one virtual thread per task, see ItemExecutionConfig.
+ */
+public class ItemTaskExecutor implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ItemTaskExecutor.class);
+
+    private final AsyncTaskExecutor delegate;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final Duration shutdownTimeout;
+    private volatile boolean closed;
+
+    public ItemTaskExecutor(AsyncTaskExecutor delegate, int maxInFlight, Duration shutdownTimeout) {
+        this.delegate = delegate;
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (closed) {
+            throw new RejectedExecutionException("Item task executor is shut down");
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a free slot", e);
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(task, delegate)
+                    .whenComplete((result, error) -> permits.release());
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    // threads blocked in submit() waiting for a free slot, the executor's effective queue
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    // stops accepting work and waits up to the shutdown timeout for the tasks in flight
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            if (!permits.tryAcquire(maxInFlight, shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("{} item tasks still running after {}", getInFlight(), shutdownTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (delegate instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.siemens.internship;
+
+// the searchable fields of an item, read by ItemSearchIndex when it is built
+public record ItemText(Long id, String name, String description) {
+}
@@ -0,0 +1,23 @@
+package com.siemens.internship;
+
+import java.time.Instant;
+
+/**
+ * Read-only copy of an item for list responses, with the same JSON shape as Item. Read through a JPQL
+ * constructor expression it is never a managed entity: Hibernate keeps no dirty-checking snapshot or
+ * persistence context entry for it, and Jackson writes it through the record accessors.
+ */
+public record ItemView(
+        Long id,
+        String name,
+        String description,
+        String status,
+        String email,
+        Long version,
+        Instant modifiedAt) {
+
+    public static ItemView of(Item item) {
+        return new ItemView(item.getId(), item.getName(), item.getDescription(), item.getStatus(), item.getEmail(),
+                item.getVersion(), item.getModifiedAt());
+    }
+}
@@ -0,0 +1,5 @@
+package com.siemens.internship;
+
+// outcome of ItemService.update; item is the written state when the outcome is DONE
+public record ItemWriteResult(WriteOutcome outcome, Item item) {
+}
@@ -0,0 +1,12 @@
+package com.siemens.internship;
+
+/**
+ * What the ETag of the item collection is derived from: the committed writes to the items counted by
+ * ItemChangeTracker. The row count comes along to decide on compressing the list before it is written.
+ */
+public record ItemsVersion(long count, long changes) {
+
+    public String tag() {
+        return Long.toHexString(changes);
+    }
+}
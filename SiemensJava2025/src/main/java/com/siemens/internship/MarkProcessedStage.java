@@ -0,0 +1,30 @@
+package com.siemens.internship;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// the default pipeline: unprocessed items are marked PROCESSED, the ones already processed need no write
+@Component
+public class MarkProcessedStage implements ItemProcessor {
+
+    public static final String NAME = "mark-processed";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<Item> process(List<Item> batch) {
+        List<Item> changed = new ArrayList<>(batch.size());
+        for (Item item : batch) {
+            if (!"PROCESSED".equals(item.getStatus())) {
+                item.setStatus("PROCESSED");
+                changed.add(item);
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,28 @@
+package com.siemens.internship;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * How far a kind of processing has got, kept in the database so it survives restarts and is shared by
+ * every instance. The watermark is the start time of the last run that got through all of its rows:
+ * everything modified before it has been processed, so the next run only has to read what changed since.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProcessingCheckpoint {
+    @Id
+    private String name;
+    private Instant watermark;
+    private Instant updatedAt;
+}
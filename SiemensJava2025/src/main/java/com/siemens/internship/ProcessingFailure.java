@@ -0,0 +1,30 @@
+package com.siemens.internship;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Dead-letter entry of an item the processing failed on: how many runs failed on it and why the last one
+ * did. While attempts is below item.processing.max-item-attempts the item keeps the watermark where it was,
+ * so the next run reads it again; after that it is parked here and the watermark moves past it. The entry is
+ * removed once a run gets the item through.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProcessingFailure {
+    @Id
+    private Long itemId;
+    private int attempts;
+    private String lastError;
+    private Instant lastFailedAt;
+}
@@ -0,0 +1,210 @@
+package com.siemens.internship;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A single run of the item processing, started through {@code POST /api/items/process} (in the background)
+ * or {@code GET /api/items/process}. Every chunk worker adds its counts once it is done with its chunk and
+ * the polling requests read them, so the counters are LongAdders (one cell per contending thread, summed on
+ * read) and the lifecycle fields are volatile. Only a capped number of failed ids is kept, whatever the
+ * size of the run; the items the run updated stay in the database, see ItemService.findProcessedPage.
+ */
+public class ProcessingJob {
+
+    public enum State { QUEUED, RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    // the ids in (after, last]
+    public record Range(long after, long last) {
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Instant createdAt = Instant.now();
+    // true to read every item, false to read only the items modified since the processing checkpoint
+    private final boolean fullRescan;
+    // lease mode: the full rescan was asked for while a round reading only the changed items was open, and the
+    // run joined that round instead; the next round opened after it is done can be a full one
+    private volatile boolean fullRescanIgnored;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    // the first failed ids up to the cap given to addFailed, guarded by itself
+    private final List<Long> failedIds = new ArrayList<>();
+    private volatile boolean failedIdsTruncated;
+    // in lease mode the id ranges this run claimed, guarded by the job; null when it works on the whole table
+    private List<Range> ranges;
+
+    private volatile State state = State.QUEUED;
+    private volatile long total;
+    private volatile Instant since;
+    private volatile Instant until;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+
+    public ProcessingJob() {
+        this(false);
+    }
+
+    public ProcessingJob(boolean fullRescan) {
+        this.fullRescan = fullRescan;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    // cooperative: the processing loop checks the flag between chunks
+    public void requestCancel() {
+        cancelRequested = true;
+    }
+
+    public boolean isFullRescan() {
+        return fullRescan;
+    }
+
+    public boolean isFullRescanIgnored() {
+        return fullRescanIgnored;
+    }
+
+    public void ignoreFullRescan() {
+        fullRescanIgnored = true;
+    }
+
+    // the time the items updated by this run are stamped with, null until the run has started
+    public Instant getUntil() {
+        return until;
+    }
+
+    // since is the watermark the run reads from, null when it reads every item; until is the
+    // modifiedAt every item updated by the run gets
+    public void start(long total, Instant since, Instant until) {
+        this.total = total;
+        this.since = since;
+        this.until = until;
+        this.startedAt = Instant.now();
+        this.state = State.RUNNING;
+    }
+
+    // lease mode: the run only covers the ranges added with addRange, other instances the rest
+    public synchronized void restrictToRanges() {
+        if (ranges == null) {
+            ranges = new ArrayList<>();
+        }
+    }
+
+    public synchronized void addRange(long after, long last) {
+        ranges.add(new Range(after, last));
+    }
+
+    // the ranges of the run in id order, null when it works on the whole table
+    public synchronized List<Range> getRanges() {
+        return ranges == null ? null : ranges.stream().sorted(Comparator.comparingLong(Range::after)).toList();
+    }
+
+    public void complete() {
+        finish(cancelRequested ? State.CANCELLED : State.COMPLETED, null);
+    }
+
+    public void fail(Throwable cause) {
+        finish(State.FAILED, cause.getMessage());
+    }
+
+    private void finish(State finalState, String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.state = finalState;
+    }
+
+    // items whose status was changed by this run
+    public void addProcessed(long count) {
+        processed.add(count);
+    }
+
+    // items read but already processed
+    public void addSkipped(long count) {
+        skipped.add(count);
+    }
+
+    // items that could not be written back; of their ids only the first maxKept of the run are kept
+    public void addFailed(Collection<Long> ids, int maxKept) {
+        failed.add(ids.size());
+        if (ids.isEmpty() || failedIdsTruncated) {
+            return;
+        }
+        synchronized (failedIds) {
+            for (Long id : ids) {
+                if (failedIds.size() >= maxKept) {
+                    failedIdsTruncated = true;
+                    return;
+                }
+                failedIds.add(id);
+            }
+        }
+    }
+
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public List<Long> getFailedIds() {
+        synchronized (failedIds) {
+            return List.copyOf(failedIds);
+        }
+    }
+
+    public ProcessingJobStatus status() {
+        long processedCount = processed.sum();
+        long skippedCount = skipped.sum();
+        long failedCount = failed.sum();
+        long done = processedCount + skippedCount + failedCount;
+        Instant start = startedAt;
+        Long elapsedMillis = null;
+        double itemsPerSecond = 0;
+        Long etaSeconds = null;
+
+        if (start != null) {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            elapsedMillis = Duration.between(start, end).toMillis();
+            itemsPerSecond = done * 1000.0 / Math.max(1, elapsedMillis);
+            if (finishedAt == null && itemsPerSecond > 0) {
+                etaSeconds = (long) Math.ceil(Math.max(0, total - done) / itemsPerSecond);
+            }
+        }
+
+        return new ProcessingJobStatus(id, state, fullRescan, fullRescanIgnored, since, total, processedCount, skippedCount, failedCount,
+                getFailedIds(), failedIdsTruncated, itemsPerSecond, etaSeconds, elapsedMillis, createdAt, start, finishedAt, error);
+    }
+}
@@ -0,0 +1,58 @@
+package com.siemens.internship;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded in-memory registry of processing jobs. Finished jobs stay pollable for
+ * item.processing.jobs.ttl and are then evicted; when the registry is full the oldest finished
+ * jobs are dropped first, and if every tracked job is still running no new job is accepted.
+ */
+@Component
+public class ProcessingJobRegistry {
+
+    @Value("${item.processing.jobs.max-tracked:100}")
+    private int maxTracked;
+
+    @Value("${item.processing.jobs.ttl:PT1H}")
+    private Duration ttl;
+
+    private final Map<String, ProcessingJob> jobs = new ConcurrentHashMap<>();
+
+    // returns empty when the registry is full of unfinished jobs
+    public synchronized Optional<ProcessingJob> register(boolean fullRescan) {
+        evictExpired();
+        if (jobs.size() >= maxTracked) {
+            jobs.values().stream()
+                    .filter(ProcessingJob::isFinished)
+                    .sorted(Comparator.comparing(ProcessingJob::getFinishedAt))
+                    .limit(jobs.size() - maxTracked + 1L)
+                    .toList()
+                    .forEach(job -> jobs.remove(job.getId()));
+        }
+        if (jobs.size() >= maxTracked) {
+            return Optional.empty();
+        }
+
+        ProcessingJob job = new ProcessingJob(fullRescan);
+        jobs.put(job.getId(), job);
+        return Optional.of(job);
+    }
+
+    public Optional<ProcessingJob> find(String jobId) {
+        evictExpired();
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void evictExpired() {
+        Instant cutoff = Instant.now().minus(ttl);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+}
@@ -0,0 +1,28 @@
+package com.siemens.internship;
+
+import java.time.Instant;
+import java.util.List;
+
+// point-in-time view of a ProcessingJob returned by the /api/items/process endpoints; failedIds holds at most
+// item.processing.max-failed-ids of the failed items, failedIdsTruncated tells whether there were more.
+// fullRescanIgnored: in lease mode a full rescan was asked for but the run joined the open round of changed items
+public record ProcessingJobStatus(
+        String jobId,
+        ProcessingJob.State state,
+        boolean fullRescan,
+        boolean fullRescanIgnored,
+        Instant since,
+        long total,
+        long processed,
+        long skipped,
+        long failed,
+        List<Long> failedIds,
+        boolean failedIdsTruncated,
+        double itemsPerSecond,
+        Long etaSeconds,
+        Long elapsedMillis,
+        Instant createdAt,
+        Instant startedAt,
+        Instant finishedAt,
+        String error) {
+}
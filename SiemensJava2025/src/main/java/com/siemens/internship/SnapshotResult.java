@@ -0,0 +1,10 @@
+package com.siemens.internship;
+
+// outcome of writing or restoring a snapshot
+public record SnapshotResult(
+        String name,
+        long items,
+        long bytes,
+        boolean compressed,
+        long durationMillis) {
+}
@@ -0,0 +1,39 @@
+package com.siemens.internship;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * One id range (rangeStart, rangeEnd] of the processing round in progress, claimed by one instance at a
+ * time. The owner has to renew the lease before expiresAt, otherwise any instance can take it over; once
+ * every item of the range has been written back it is marked done. A range that keeps failing is marked
+ * done and failed after item.processing.leases.max-attempts, so it cannot hold the round open. All leases
+ * of a round share the modification window (roundSince, roundUntil) the round reads, see WorkLeaseService.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class WorkLease {
+    @Id
+    private Long rangeStart;
+    private Long rangeEnd;
+    // null when the round reads every item
+    private Instant roundSince;
+    private Instant roundUntil;
+    private String owner;
+    private Instant expiresAt;
+    private boolean done;
+    // runs that gave the range back with failed items
+    private int attempts;
+    // given up after max-attempts failed runs; the round then closes without moving the watermark
+    private boolean failed;
+}
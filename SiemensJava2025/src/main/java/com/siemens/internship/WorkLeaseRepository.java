@@ -0,0 +1,60 @@
+package com.siemens.internship;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+// every state change is one conditional UPDATE, the affected-row count tells the caller whether it won
+public interface WorkLeaseRepository extends JpaRepository<WorkLease, Long> {
+
+    Optional<WorkLease> findFirstByDoneFalseOrderByRangeStartAsc();
+
+    long countByDoneFalse();
+
+    long countByFailedTrue();
+
+    // clears the finished round before the next one is opened; never touches the ranges of an open round,
+    // so an instance opening a round concurrently cannot remove the one another instance just opened
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM WorkLease l WHERE l.done = true")
+    int deleteDone();
+
+    // open ranges nobody holds, or whose holder let the lease expire
+    @Query("SELECT l FROM WorkLease l WHERE l.done = false AND (l.owner IS NULL OR l.expiresAt < :now) ORDER BY l.rangeStart")
+    List<WorkLease> findClaimable(@Param("now") Instant now, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WorkLease l SET l.owner = :owner, l.expiresAt = :expiresAt " +
+            "WHERE l.rangeStart = :rangeStart AND l.done = false AND (l.owner IS NULL OR l.expiresAt < :now)")
+    int claim(@Param("rangeStart") Long rangeStart, @Param("owner") String owner,
+              @Param("expiresAt") Instant expiresAt, @Param("now") Instant now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WorkLease l SET l.expiresAt = :expiresAt " +
+            "WHERE l.rangeStart = :rangeStart AND l.owner = :owner AND l.done = false")
+    int renew(@Param("rangeStart") Long rangeStart, @Param("owner") String owner, @Param("expiresAt") Instant expiresAt);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WorkLease l SET l.done = true, l.expiresAt = null " +
+            "WHERE l.rangeStart = :rangeStart AND l.owner = :owner AND l.done = false")
+    int complete(@Param("rangeStart") Long rangeStart, @Param("owner") String owner);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WorkLease l SET l.owner = null, l.expiresAt = null " +
+            "WHERE l.rangeStart = :rangeStart AND l.owner = :owner AND l.done = false")
+    int release(@Param("rangeStart") Long rangeStart, @Param("owner") String owner);
+
+    // gives the range back with one more failed attempt, or closes it as failed once it reaches :maxAttempts
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WorkLease l SET l.owner = null, l.expiresAt = null, l.attempts = l.attempts + 1, " +
+            "l.done = CASE WHEN l.attempts + 1 >= :maxAttempts THEN true ELSE false END, " +
+            "l.failed = CASE WHEN l.attempts + 1 >= :maxAttempts THEN true ELSE false END " +
+            "WHERE l.rangeStart = :rangeStart AND l.owner = :owner AND l.done = false")
+    int fail(@Param("rangeStart") Long rangeStart, @Param("owner") String owner, @Param("maxAttempts") int maxAttempts);
+}
@@ -0,0 +1,174 @@
+package com.siemens.internship;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Splits a processing run between the instances sharing the database (item.processing.leases.enabled).
+ * A round covers the whole id space as ranges of item.processing.leases.range-size ids, one WorkLease row
+ * each. Every instance that starts processing while a round is open joins it and claims ranges one at a
+ * time, so N instances split the work about N ways instead of all walking the whole table. A claimed range
+ * is renewed while it is worked on and taken over by another instance once its lease has expired.
+ */
+@Service
+public class WorkLeaseService {
+    private static final Logger log = LoggerFactory.getLogger(WorkLeaseService.class);
+    private static final int MAX_OPEN_ATTEMPTS = 3;
+    // ranges looked at per claim attempt, so instances racing for the first free range fall through to the next ones
+    private static final int CLAIM_CANDIDATES = 16;
+
+    @Autowired
+    private WorkLeaseRepository workLeaseRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${item.processing.leases.range-size:10000}")
+    private long rangeSize;
+
+    @Value("${item.processing.leases.ttl:PT30S}")
+    private Duration ttl;
+
+    @Value("${item.processing.leases.max-attempts:3}")
+    private int maxAttempts;
+
+    // identifies this instance as the owner of its leases
+    private final String owner = UUID.randomUUID().toString();
+
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * The round in progress, or a new one over (since, until) when every range of the last round is done.
+     * Range boundaries are multiples of the range size, so two instances opening a round at the same time
+     * write the same keys: one of them fails on the primary key and joins the round of the other.
+     */
+    public WorkRound joinOrOpenRound(Instant since, Instant until) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    Optional<WorkLease> open = workLeaseRepository.findFirstByDoneFalseOrderByRangeStartAsc();
+                    if (open.isPresent()) {
+                        return new WorkRound(open.get().getRoundSince(), open.get().getRoundUntil());
+                    }
+
+                    workLeaseRepository.deleteDone();
+                    Long min = itemRepository.findMinId();
+                    Long max = itemRepository.findMaxId();
+                    List<WorkLease> leases = new ArrayList<>();
+                    if (min != null) {
+                        for (long after = Math.floorDiv(min - 1, rangeSize) * rangeSize; after < max; after += rangeSize) {
+                            leases.add(new WorkLease(after, after + rangeSize, since, until, null, null, false, 0, false));
+                        }
+                    }
+                    // persisted rather than saved: save would merge into rows another instance committed meanwhile
+                    leases.forEach(entityManager::persist);
+                    workLeaseRepository.flush();
+                    log.info("Opened processing round of {} ranges up to {}", leases.size(), until);
+                    return new WorkRound(since, until);
+                });
+            } catch (DataAccessException e) {
+                if (attempt >= MAX_OPEN_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Another instance opened the processing round at the same time, joining it: {}", e.getMessage());
+            }
+        }
+    }
+
+    // next range of the round for this instance, empty when every range is done or held by a live lease
+    public Optional<WorkLease> claimNext() {
+        return claimNext(Set.of());
+    }
+
+    // same, skipping the given ranges: the ones a run gave back itself, so it does not take them straight back
+    public Optional<WorkLease> claimNext(Collection<Long> skippedRangeStarts) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        while (true) {
+            Instant now = Instant.now();
+            List<WorkLease> candidates = workLeaseRepository.findClaimable(now,
+                    PageRequest.of(0, CLAIM_CANDIDATES + skippedRangeStarts.size())).stream()
+                    .filter(lease -> !skippedRangeStarts.contains(lease.getRangeStart()))
+                    .toList();
+            if (candidates.isEmpty()) {
+                return Optional.empty();
+            }
+            for (WorkLease lease : candidates) {
+                Instant expiresAt = now.plus(ttl);
+                Integer claimed = transactionTemplate.execute(status ->
+                        workLeaseRepository.claim(lease.getRangeStart(), owner, expiresAt, now));
+                if (claimed != null && claimed == 1) {
+                    if (lease.getOwner() != null) {
+                        log.info("Took over expired lease of range ({}, {}] from {}", lease.getRangeStart(), lease.getRangeEnd(), lease.getOwner());
+                    }
+                    lease.setOwner(owner);
+                    lease.setExpiresAt(expiresAt);
+                    return Optional.of(lease);
+                }
+            }
+        }
+    }
+
+    // false when the lease expired and was taken over, the range has to be left to the new owner
+    public boolean renew(WorkLease lease) {
+        Instant expiresAt = Instant.now().plus(ttl);
+        Integer renewed = new TransactionTemplate(transactionManager).execute(status ->
+                workLeaseRepository.renew(lease.getRangeStart(), owner, expiresAt));
+        if (renewed == null || renewed == 0) {
+            log.warn("Lost lease of range ({}, {}]", lease.getRangeStart(), lease.getRangeEnd());
+            return false;
+        }
+        lease.setExpiresAt(expiresAt);
+        return true;
+    }
+
+    // marks the range done; true when it was the last open range and no range of the round was given up,
+    // i.e. the round is complete and the watermark may move to its end
+    public boolean complete(WorkLease lease) {
+        Integer completed = new TransactionTemplate(transactionManager).execute(status ->
+                workLeaseRepository.complete(lease.getRangeStart(), owner));
+        return completed != null && completed == 1 && workLeaseRepository.countByDoneFalse() == 0
+                && workLeaseRepository.countByFailedTrue() == 0;
+    }
+
+    // gives a range back unfinished (cancelled job) so any instance can claim it again right away
+    public void release(WorkLease lease) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                workLeaseRepository.release(lease.getRangeStart(), owner));
+    }
+
+    // Gives a range with failed items back for another attempt. After item.processing.leases.max-attempts
+    // the range is closed as failed instead: the round can then finish, without moving the watermark, so the
+    // next round reads the range again along with every newer change rather than the whole cluster staying
+    // on this round's window
+    public void fail(WorkLease lease) {
+        Integer failed = new TransactionTemplate(transactionManager).execute(status ->
+                workLeaseRepository.fail(lease.getRangeStart(), owner, maxAttempts));
+        if (failed != null && failed == 1 && lease.getAttempts() + 1 >= maxAttempts) {
+            log.warn("Gave up on range ({}, {}] after {} failed attempts", lease.getRangeStart(), lease.getRangeEnd(), maxAttempts);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.siemens.internship;
+
+import java.time.Instant;
+
+// modification window of the processing round all instances are working on; since is null for a full scan
+public record WorkRound(Instant since, Instant until) {
+}
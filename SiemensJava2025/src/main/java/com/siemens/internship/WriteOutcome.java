@@ -0,0 +1,9 @@
+package com.siemens.internship;
+
+// result of a conditional single-row write, derived from the affected-row count
+public enum WriteOutcome {
+    DONE,
+    NOT_FOUND,
+    // the row exists but no longer has the version the caller based its change on
+    CONFLICT
+}
@@ -0,0 +1,52 @@
+-- Schema of the entities for the fast-startup profile, which validates it (spring.jpa.hibernate.ddl-auto=validate)
+-- instead of having Hibernate compare and update it on every start. Keep in step with the @Entity classes.
+create sequence if not exists item_seq start with 1 increment by 1000;
+
+create table if not exists item (
+    id bigint not null,
+    modified_at timestamp(6) with time zone,
+    version bigint,
+    description varchar(255),
+    email varchar(255),
+    name varchar(255),
+    status varchar(255),
+    primary key (id)
+);
+
+create table if not exists item_change_counter (
+    changes bigint not null,
+    name varchar(255) not null,
+    primary key (name)
+);
+
+create table if not exists processing_checkpoint (
+    updated_at timestamp(6) with time zone,
+    watermark timestamp(6) with time zone,
+    name varchar(255) not null,
+    primary key (name)
+);
+
+create table if not exists processing_failure (
+    attempts integer not null,
+    item_id bigint not null,
+    last_failed_at timestamp(6) with time zone,
+    last_error varchar(255),
+    primary key (item_id)
+);
+
+create table if not exists work_lease (
+    attempts integer not null,
+    done boolean not null,
+    failed boolean not null,
+    expires_at timestamp(6) with time zone,
+    range_end bigint,
+    range_start bigint not null,
+    round_since timestamp(6) with time zone,
+    round_until timestamp(6) with time zone,
+    owner varchar(255),
+    primary key (range_start)
+);
+
+create index if not exists idx_item_status_id on item (status, id);
+create index if not exists idx_item_email_id on item (email, id);
+create index if not exists idx_item_modified_at_id on item (modified_at, id);
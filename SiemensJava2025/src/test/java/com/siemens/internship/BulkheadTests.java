@@ -0,0 +1,42 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkheadTests {
+
+    @Test
+    public void testQueuedRequestGetsTheNextFreeSlot() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, Duration.ofSeconds(5), Duration.ofSeconds(1), HttpStatus.SERVICE_UNAVAILABLE);
+        assertTrue(bulkhead.tryAcquire());
+
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(bulkhead::tryAcquire);
+        while (bulkhead.getQueued() == 0) {
+            Thread.sleep(10);
+        }
+        // the queue is full, the next one is turned away at once
+        assertFalse(bulkhead.tryAcquire());
+        assertEquals(1, bulkhead.getRejected());
+
+        bulkhead.release();
+        assertTrue(queued.get(1, TimeUnit.SECONDS));
+        assertEquals(1, bulkhead.getActive());
+        assertEquals(0, bulkhead.getQueued());
+    }
+
+    @Test
+    public void testQueuedRequestGivesUpAfterMaxWait() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 5, Duration.ofMillis(50), Duration.ofSeconds(1), HttpStatus.SERVICE_UNAVAILABLE);
+        assertTrue(bulkhead.tryAcquire());
+
+        assertFalse(bulkhead.tryAcquire());
+        assertEquals(1, bulkhead.getRejected());
+        assertEquals(0, bulkhead.getQueued());
+    }
+}
@@ -0,0 +1,86 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmailValidatorTests {
+
+    // characters the pattern treats specially, plus a few it rejects (including non-ASCII letters that
+    // only a Unicode-aware case-insensitive match would accept)
+    private static final char[] ALPHABET = "aZz09._%+-@@..#  \néKſ".toCharArray();
+    private static final String[] TOP_LEVEL = {"com", "c", "co", "c0m", "COM", "x-y", ""};
+
+    @Test
+    public void testAgreesWithRegexOnRandomStrings() {
+        Random random = new Random(20250517L);
+        for (int i = 0; i < 200_000; i++) {
+            char[] chars = new char[random.nextInt(16)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = ALPHABET[random.nextInt(ALPHABET.length)];
+            }
+            assertAgrees(new String(chars));
+        }
+    }
+
+    // random strings rarely come close to a valid address, these start from one and mutate it
+    @Test
+    public void testAgreesWithRegexOnNearlyValidAddresses() {
+        Random random = new Random(42L);
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder email = new StringBuilder()
+                    .append(randomPart(random)).append('@').append(randomPart(random))
+                    .append('.').append(TOP_LEVEL[random.nextInt(TOP_LEVEL.length)]);
+            int mutations = random.nextInt(3);
+            for (int m = 0; m < mutations && email.length() > 0; m++) {
+                int position = random.nextInt(email.length());
+                if (random.nextBoolean()) {
+                    email.setCharAt(position, ALPHABET[random.nextInt(ALPHABET.length)]);
+                } else {
+                    email.deleteCharAt(position);
+                }
+            }
+            assertAgrees(email.toString());
+        }
+    }
+
+    @Test
+    public void testKnownAddresses() {
+        for (String email : List.of("test@example.com", "a@b.cd", "x.y-z_1%2+3@sub-1.example.COM", "a@1.co", ".@b.com")) {
+            assertTrue(EmailValidator.isValid(email), email);
+            assertAgrees(email);
+        }
+        for (String email : List.of("", "a@b.c", "a@.com", "a@b..com", "@b.com", "a@b.com.", "a@b.c0m",
+                "a@b@c.com", "a_b@c_d.com", "a@b.com\n", "tést@example.com")) {
+            assertFalse(EmailValidator.isValid(email), email);
+            assertAgrees(email);
+        }
+        assertFalse(EmailValidator.isValid(null));
+        assertFalse(EmailValidator.isValidByRegex(null));
+    }
+
+    @Test
+    public void testValidateAll() {
+        boolean[] valid = EmailValidator.validateAll(Arrays.asList("test@example.com", "address", null, "a@b.org"));
+
+        assertArrayEquals(new boolean[]{true, false, false, true}, valid);
+    }
+
+    private static String randomPart(Random random) {
+        StringBuilder part = new StringBuilder();
+        int length = random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            part.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+        }
+        return part.toString();
+    }
+
+    private static void assertAgrees(String email) {
+        assertEquals(EmailValidator.isValidByRegex(email), EmailValidator.isValid(email),
+                () -> "validators disagree on \"" + email + "\"");
+    }
+}
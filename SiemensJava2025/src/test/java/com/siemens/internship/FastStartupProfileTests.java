@@ -0,0 +1,27 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// the fast-startup profile only validates the schema, so db/schema.sql has to match the entities
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:fast-startup")
+@ActiveProfiles("fast-startup")
+public class FastStartupProfileTests {
+
+    @Autowired
+    private ItemService itemService;
+
+    @Test
+    public void testSchemaMatchesEntities() {
+        Item created = itemService.createAll(List.of(new Item(null, "lamp", null, "NEW", "a@example.com"))).items().get(0);
+
+        assertEquals(1, itemService.processItemsAsync(true).processed());
+        assertEquals("PROCESSED", itemService.findById(created.getId()).orElseThrow().getStatus());
+    }
+}
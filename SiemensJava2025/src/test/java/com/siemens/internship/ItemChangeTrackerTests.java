@@ -0,0 +1,65 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class ItemChangeTrackerTests {
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void cleanup() {
+        itemRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testItemsVersion_ChangesWithEveryWrite() {
+        ItemsVersion initial = itemService.itemsVersion();
+        assertEquals(initial.tag(), itemService.itemsVersion().tag());
+
+        List<Item> saved = itemService.createAll(List.of(new Item(null, "item", null, "NEW", "a@example.com"))).items();
+        ItemsVersion created = itemService.itemsVersion();
+        assertEquals(initial.count() + 1, created.count());
+        assertNotEquals(initial.tag(), created.tag());
+
+        Item changed = new Item(null, "renamed", null, "NEW", "a@example.com");
+        itemService.update(saved.get(0).getId(), changed);
+        ItemsVersion updated = itemService.itemsVersion();
+        assertNotEquals(created.tag(), updated.tag());
+
+        // nothing written, nothing counted
+        itemService.delete(saved.get(0).getId() + 1000, null);
+        assertEquals(updated.tag(), itemService.itemsVersion().tag());
+
+        itemService.delete(saved.get(0).getId(), null);
+        assertNotEquals(updated.tag(), itemService.itemsVersion().tag());
+    }
+
+    @Test
+    public void testItemsVersion_UnchangedByRolledBackWrite() {
+        ItemsVersion initial = itemService.itemsVersion();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            itemService.createAll(List.of(new Item(null, "item", null, "NEW", "a@example.com")));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(initial, itemService.itemsVersion());
+    }
+}
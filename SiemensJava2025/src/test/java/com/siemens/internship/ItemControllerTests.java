@@ -1,17 +1,40 @@
 package com.siemens.internship;
 
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
-
+import org.springframework.test.web.servlet.MvcResult;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
@@ -20,6 +43,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@AutoConfigureObservability
 public class ItemControllerTests {
     @Autowired
     private MockMvc mockMvc;
@@ -27,6 +51,15 @@ public class ItemControllerTests {
     private ItemService itemService;
     @Autowired
     private ObjectMapper objectMapper;
+    @Autowired
+    private ItemSnapshotService snapshotService;
+    @Autowired
+    private Bulkhead writesBulkhead;
+    @Autowired
+    private ItemController itemController;
+
+    // background run of the jobs started by startJob, still going until the test is over
+    private final CompletableFuture<ProcessingJob> running = new CompletableFuture<>();
 
     // Test the POST request for valid input
     @Test
@@ -112,13 +145,6 @@ public class ItemControllerTests {
     public void testUpdateItem_ExistingItem_ReturnsCreated() throws Exception {
         Long itemId = 1L;
 
-        Item existingItem = new Item();
-        existingItem.setId(itemId);
-        existingItem.setName("test item");
-        existingItem.setDescription("test description");
-        existingItem.setStatus("unprocessed");
-        existingItem.setEmail("test@gmail.com");
-
         Item updatedItem = new Item();
         updatedItem.setName("new test item");
         updatedItem.setDescription("new test description");
@@ -132,8 +158,7 @@ public class ItemControllerTests {
         savedItem.setStatus(updatedItem.getStatus());
         savedItem.setEmail(updatedItem.getEmail());
 
-        when(itemService.findById(itemId)).thenReturn(Optional.of(existingItem));
-        when(itemService.save(any(Item.class))).thenReturn(savedItem);
+        when(itemService.update(eq(itemId), any(Item.class))).thenReturn(new ItemWriteResult(WriteOutcome.DONE, savedItem));
 
         mockMvc.perform(put("/api/items/{id}", itemId)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -142,6 +167,23 @@ public class ItemControllerTests {
                 .andExpect(jsonPath("$.id").value(itemId))
                 .andExpect(jsonPath("$.name").value("new test item"))
                 .andExpect(jsonPath("$.email").value("newTest@gmail.com.com"));
+
+        // one conditional write, no lookup before it
+        verify(itemService, never()).findById(anyLong());
+        verify(itemService, never()).save(any(Item.class));
+    }
+
+    @Test
+    public void testUpdateItem_StaleVersion_ReturnsConflict() throws Exception {
+        Item updatedItem = new Item(null, "new test item", null, "unprocessed", "test@gmail.com");
+        updatedItem.setVersion(3L);
+
+        when(itemService.update(eq(1L), any(Item.class))).thenReturn(new ItemWriteResult(WriteOutcome.CONFLICT, null));
+
+        mockMvc.perform(put("/api/items/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updatedItem)))
+                .andExpect(status().isConflict());
     }
 
     @Test
@@ -154,7 +196,7 @@ public class ItemControllerTests {
         updatedItem.setStatus("new unprocessed");
         updatedItem.setEmail("newTest@gmail.com.com");
 
-        when(itemService.findById(itemId)).thenReturn(Optional.empty());
+        when(itemService.update(eq(itemId), any(Item.class))).thenReturn(new ItemWriteResult(WriteOutcome.NOT_FOUND, null));
 
         mockMvc.perform(put("/api/items/{id}", itemId)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -166,30 +208,540 @@ public class ItemControllerTests {
     public void testDeleteItem_ExistingItem_ReturnsOk() throws Exception {
         Long itemId = 1L;
 
-        Item item = new Item();
-        item.setId(itemId);
-
-        when(itemService.findById(itemId)).thenReturn(Optional.of(item));
-        doNothing().when(itemService).deleteById(itemId);
+        when(itemService.delete(itemId, null)).thenReturn(WriteOutcome.DONE);
 
         mockMvc.perform(delete("/api/items/{id}", itemId))
                 .andExpect(status().isOk());
 
-        verify(itemService, times(1)).deleteById(itemId);
+        verify(itemService, times(1)).delete(itemId, null);
+        verify(itemService, never()).findById(anyLong());
+    }
+
+    @Test
+    public void testDeleteItem_StaleVersion_ReturnsConflict() throws Exception {
+        when(itemService.delete(1L, 2L)).thenReturn(WriteOutcome.CONFLICT);
+
+        mockMvc.perform(delete("/api/items/{id}", 1L).param("version", "2"))
+                .andExpect(status().isConflict());
     }
 
     @Test
     public void testDeleteItem_NotFound_ReturnsNoContent() throws Exception {
         Long itemId = 23L;
 
-        when(itemService.findById(itemId)).thenReturn(Optional.empty());
+        when(itemService.delete(itemId, null)).thenReturn(WriteOutcome.NOT_FOUND);
 
         mockMvc.perform(delete("/api/items/{id}", itemId))
                 .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void testImportItems_CsvBody() throws Exception {
+        mockMvc.perform(post("/api/items/import")
+                        .contentType("text/csv")
+                        .content("name,description,status,email\nimported,,NEW,imported@example.com\nbad,,NEW,nope\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(2))
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                // a file name, no server path
+                .andExpect(jsonPath("$.rejectsFile").value(matchesPattern("items-import-\\d+\\.csv\\.rejects")));
+    }
+
+    @Test
+    public void testImportItems_UnsupportedContentType() throws Exception {
+        mockMvc.perform(post("/api/items/import").contentType(MediaType.APPLICATION_XML).content("<items/>"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    public void testSnapshot_CreateAndDownload() throws Exception {
+        MvcResult created = mockMvc.perform(post("/api/items/snapshots").param("compress", "false"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", containsString("/api/items/snapshots/items-")))
+                .andReturn();
+        SnapshotResult snapshot = objectMapper.readValue(created.getResponse().getContentAsString(), SnapshotResult.class);
+
+        try {
+            MvcResult download = mockMvc.perform(get("/api/items/snapshots/{name}", snapshot.name()))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            byte[] body = mockMvc.perform(asyncDispatch(download))
+                    .andExpect(status().isOk())
+                    .andExpect(header().longValue("Content-Length", snapshot.bytes()))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            assertEquals(snapshot.bytes(), body.length);
+            assertEquals("ISNP", new String(body, 0, 4));
+        } finally {
+            Files.delete(snapshotService.find(snapshot.name()).orElseThrow());
+        }
+    }
+
+    @Test
+    public void testSnapshot_DownloadThroughSendfile() throws Exception {
+        SnapshotResult snapshot = snapshotService.write(false);
+        Path file = snapshotService.find(snapshot.name()).orElseThrow();
+        try {
+            // as set by Tomcat's NIO connector
+            MvcResult download = mockMvc.perform(get("/api/items/snapshots/{name}", snapshot.name())
+                            .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE))
+                    .andExpect(status().isOk())
+                    .andExpect(header().longValue("Content-Length", snapshot.bytes()))
+                    .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString()))
+                    .andExpect(request().attribute("org.apache.tomcat.sendfile.start", 0L))
+                    .andExpect(request().attribute("org.apache.tomcat.sendfile.end", snapshot.bytes()))
+                    .andReturn();
+
+            // the container sends the file, nothing is written here
+            assertEquals(0, download.getResponse().getContentAsByteArray().length);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSnapshot_UnknownName() throws Exception {
+        mockMvc.perform(get("/api/items/snapshots/{name}", "missing.isnp"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(post("/api/items/snapshots/{name}/restore", "missing.isnp"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void testStartProcessing_ReturnsAcceptedWithJob() throws Exception {
+        when(itemService.processItemsInBackground(any(ProcessingJob.class)))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(invocation.getArgument(0)));
+
+        mockMvc.perform(post("/api/items/process"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.jobId").isNotEmpty())
+                .andExpect(jsonPath("$.state").value("QUEUED"))
+                .andExpect(jsonPath("$.fullRescan").value(false));
+
+        verify(itemService, times(1)).processItemsInBackground(any(ProcessingJob.class));
+    }
+
+    @Test
+    public void testStartProcessing_FullRescan() throws Exception {
+        when(itemService.processItemsInBackground(any(ProcessingJob.class)))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(invocation.getArgument(0)));
+
+        mockMvc.perform(post("/api/items/process").param("full", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.fullRescan").value(true));
+
+        verify(itemService).processItemsInBackground(argThat(ProcessingJob::isFullRescan));
+    }
+
+    @Test
+    public void testGetProcessingJob_ReturnsProgress() throws Exception {
+        ProcessingJob job = startJob();
+        job.start(10, null, Instant.now());
+        job.addProcessed(4);
+        job.addSkipped(1);
+
+        mockMvc.perform(get("/api/items/process/{jobId}", job.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("RUNNING"))
+                .andExpect(jsonPath("$.total").value(10))
+                .andExpect(jsonPath("$.processed").value(4))
+                .andExpect(jsonPath("$.skipped").value(1));
+    }
+
+    @Test
+    public void testGetProcessingJob_Unknown_ReturnsNoContent() throws Exception {
+        mockMvc.perform(get("/api/items/process/{jobId}", "unknown"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void testCancelProcessingJob_RequestsCancel() throws Exception {
+        ProcessingJob job = startJob();
+
+        mockMvc.perform(delete("/api/items/process/{jobId}", job.getId()))
+                .andExpect(status().isAccepted());
+
+        assertTrue(job.isCancelRequested());
+    }
+
+    @Test
+    public void testStartProcessing_OneRunAtATime() throws Exception {
+        startJob();
+
+        mockMvc.perform(post("/api/items/process"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "10"));
+        mockMvc.perform(get("/api/items/process"))
+                .andExpect(status().isTooManyRequests());
+        verify(itemService, never()).processItems(any(ProcessingJob.class));
+
+        running.complete(null);
+        mockMvc.perform(get("/api/items/process"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testWrites_RejectedWhileSaturated() throws Exception {
+        int held = 0;
+        // occupy every slot; nothing may queue for this test
+        ReflectionTestUtils.setField(writesBulkhead, "maxQueued", 0);
+        try {
+            while (writesBulkhead.tryAcquire()) {
+                held++;
+            }
+            mockMvc.perform(delete("/api/items/{id}", 1L))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"));
+            mockMvc.perform(get("/api/items/cache/stats"))
+                    .andExpect(status().isOk());
+            verify(itemService, never()).delete(anyLong(), any());
+        } finally {
+            ReflectionTestUtils.setField(writesBulkhead, "maxQueued", 64);
+            for (int i = 0; i < held; i++) {
+                writesBulkhead.release();
+            }
+        }
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(content().string(containsString("item_admission_rejected_total{bulkhead=\"writes\"")));
+    }
+
+    @AfterEach
+    public void finishRunningJob() {
+        // gives the process bulkhead back for the next test
+        running.complete(null);
+    }
+
+    // starts a job through the endpoint and captures the instance handed to the service
+    private ProcessingJob startJob() throws Exception {
+        ArgumentCaptor<ProcessingJob> captor = ArgumentCaptor.forClass(ProcessingJob.class);
+        when(itemService.processItemsInBackground(captor.capture()))
+                .thenAnswer(invocation -> running);
+
+        mockMvc.perform(post("/api/items/process"))
+                .andExpect(status().isAccepted());
+        return captor.getValue();
+    }
+
+    @Test
+    public void testGetAllItems_DefaultsToJsonArray() throws Exception {
+        streamViews(List.of(new ItemView(1L, "test item", null, null, null, 0L, null)));
+        when(itemService.itemsVersion()).thenReturn(new ItemsVersion(1L, 0L));
+
+        MvcResult result = mockMvc.perform(get("/api/items"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    public void testGetAllItems_NotModifiedWithoutLoading() throws Exception {
+        streamViews(List.of());
+        when(itemService.itemsVersion()).thenReturn(new ItemsVersion(10L, 12L));
+        MvcResult result = mockMvc.perform(get("/api/items").header("If-None-Match", "\"other\""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String etag = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/items").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+        verify(itemService, times(1)).streamAllViews(any());
+
+        // any write moves the change counter and with it the tag
+        when(itemService.itemsVersion()).thenReturn(new ItemsVersion(10L, 13L));
+        mockMvc.perform(get("/api/items").header("If-None-Match", etag))
+                .andExpect(request().asyncStarted());
+        verify(itemService, never()).findAllViews();
+    }
+
+    @Test
+    public void testGetAllItems_GzipsLargeLists() throws Exception {
+        List<ItemView> items = new ArrayList<>();
+        for (long i = 0; i < 100; i++) {
+            items.add(new ItemView(i, "item " + i, "description", "NEW", "user" + i + "@example.com", 0L, null));
+        }
+        streamViews(items);
+        when(itemService.itemsVersion()).thenReturn(new ItemsVersion(100L, 0L));
+
+        MvcResult started = mockMvc.perform(get("/api/items").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("ETag", containsString("-gzip")))
+                .andReturn();
+
+        byte[] json = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray())).readAllBytes();
+        assertEquals(100, objectMapper.readValue(json, Item[].class).length);
+        mockMvc.perform(get("/api/items").header("If-None-Match", result.getResponse().getHeader("ETag")))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void testGetAllItems_SmallListsStayUncompressed() throws Exception {
+        streamViews(List.of(new ItemView(1L, "test item", null, null, null, 0L, null)));
+        when(itemService.itemsVersion()).thenReturn(new ItemsVersion(1L, 0L));
+
+        MvcResult result = mockMvc.perform(get("/api/items").header("Accept-Encoding", "gzip"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().string("ETag", "\"items-0\""))
+                .andExpect(jsonPath("$[0].name").value("test item"));
+    }
 
-        verify(itemService, never()).deleteById(anyLong());
+    // hands the views to the action passed to ItemService.streamAllViews, like the database cursor would
+    private void streamViews(List<ItemView> views) {
+        doAnswer(invocation -> {
+            Consumer<ItemView> action = invocation.getArgument(0);
+            views.forEach(action);
+            return null;
+        }).when(itemService).streamAllViews(any());
     }
 
+    @Test
+    public void testGetItemById_NotModifiedWithoutLoading() throws Exception {
+        Item item = new Item(1L, "test item", null, "NEW", "test@gmail.com", 3L, null);
+        when(itemService.findById(1L)).thenReturn(Optional.of(item));
+        when(itemService.findVersion(1L)).thenReturn(Optional.of(3L));
+
+        mockMvc.perform(get("/api/items/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3\""));
+        mockMvc.perform(get("/api/items/1").header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isNotModified());
+        verify(itemService, times(1)).findById(1L);
+
+        // changed since
+        item.setVersion(4L);
+        when(itemService.findVersion(1L)).thenReturn(Optional.of(4L));
+        mockMvc.perform(get("/api/items/1").header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-4\""));
+    }
+
+    @Test
+    public void testProcessItems_ReturnsSummaryAndPagesItemsOnRequest() throws Exception {
+        Item item = new Item(7L, "processed", null, "PROCESSED", "p@example.com", 2L, Instant.parse("2026-01-01T00:00:00Z"));
+        ArgumentCaptor<ProcessingJob> captor = ArgumentCaptor.forClass(ProcessingJob.class);
+        when(itemService.processItems(captor.capture())).thenAnswer(invocation -> {
+            ProcessingJob job = invocation.getArgument(0);
+            job.start(3, null, item.getModifiedAt());
+            job.addProcessed(1);
+            job.addSkipped(1);
+            job.addFailed(List.of(9L), 100);
+            job.complete();
+            return job.status();
+        });
+
+        mockMvc.perform(get("/api/items/process"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.state").value("COMPLETED"))
+                .andExpect(jsonPath("$.processed").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.failedIds[0]").value(9L))
+                .andExpect(jsonPath("$.failedIdsTruncated").value(false))
+                .andExpect(jsonPath("$.elapsedMillis").isNumber());
+
+        ProcessingJob job = captor.getValue();
+        when(itemService.findProcessedPage(job, 5L, 10)).thenReturn(new ItemPage(List.of(ItemView.of(item)), null));
+        mockMvc.perform(get("/api/items/process/{jobId}/items", job.getId()).param("after", "5").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(7L))
+                .andExpect(jsonPath("$.items[0].status").value("PROCESSED"));
+        mockMvc.perform(get("/api/items/process/{jobId}/items", job.getId()).param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testStreamAllItems_WritesOneItemPerLine() throws Exception {
+        streamViews(List.of(new ItemView(1L, "first", null, null, null, 0L, null),
+                new ItemView(2L, "second", null, null, null, 0L, null)));
+
+        MvcResult result = mockMvc.perform(get("/api/items").accept(ItemController.NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ItemController.NDJSON_VALUE))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, objectMapper.readValue(lines[0], Item.class).getId());
+        assertEquals("second", objectMapper.readValue(lines[1], Item.class).getName());
+        verify(itemService, never()).findAllViews();
+    }
+
+    @Test
+    public void testStreamAllItems_DoesNotFlushPerItem() throws Exception {
+        List<ItemView> views = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            views.add(new ItemView(id, "item " + id, null, "NEW", "user" + id + "@example.com", 0L, null));
+        }
+        streamViews(views);
+        AtomicInteger flushes = new AtomicInteger();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes.incrementAndGet();
+            }
+        };
+
+        itemController.streamAllItems().getBody().writeTo(out);
+
+        assertEquals(100, out.toString(StandardCharsets.UTF_8).split("\n").length);
+        // only when the generator is closed
+        assertTrue(flushes.get() <= 1, () -> flushes.get() + " flushes");
+    }
+
+    @Test
+    public void testGetItemPage_PassesCursorAndFilters() throws Exception {
+        Item item = new Item();
+        item.setId(11L);
+        item.setStatus("UNPROCESSED");
+
+        when(itemService.findPage(10L, 1, "UNPROCESSED", null)).thenReturn(new ItemPage(List.of(ItemView.of(item)), 11L));
+
+        mockMvc.perform(get("/api/items/page")
+                        .param("after", "10")
+                        .param("limit", "1")
+                        .param("status", "UNPROCESSED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(11L))
+                .andExpect(jsonPath("$.nextCursor").value(11L));
+    }
+
+    @Test
+    public void testGetItemPage_LimitOutOfRange_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/items/page").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/items/page").param("limit", String.valueOf(ItemController.MAX_PAGE_SIZE + 1)))
+                .andExpect(status().isBadRequest());
 
+        verify(itemService, never()).findPage(any(), anyInt(), any(), any());
+    }
+
+    @Test
+    public void testSearchItems_ReturnsRankedPage() throws Exception {
+        ItemView view = new ItemView(3L, "red bicycle", null, "NEW", "a@example.com", 0L, Instant.now());
+        when(itemService.search("bicycle", 20, 10))
+                .thenReturn(Optional.of(new ItemSearchPage("bicycle", 21, true, 20, 10, List.of(new ItemSearchHit(view, 1.5)))));
+
+        mockMvc.perform(get("/api/items/search").param("q", "bicycle").param("offset", "20").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(21))
+                .andExpect(jsonPath("$.totalExact").value(true))
+                .andExpect(jsonPath("$.hits[0].item.name").value("red bicycle"))
+                .andExpect(jsonPath("$.hits[0].score").value(1.5));
+    }
+
+    @Test
+    public void testSearchItems_IndexNotBuiltOrBadQuery() throws Exception {
+        when(itemService.search("bicycle", 0, 20)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/items/search").param("q", "bicycle"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"));
+        mockMvc.perform(get("/api/items/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/items/search").param("q", "bicycle").param("offset", String.valueOf(ItemController.MAX_SEARCH_RESULTS)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testGetCacheStats() throws Exception {
+        when(itemService.cacheStats()).thenReturn(new ItemCacheStats(3, 1, 0, 2, 0.75));
+
+        mockMvc.perform(get("/api/items/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits").value(3))
+                .andExpect(jsonPath("$.misses").value(1))
+                .andExpect(jsonPath("$.hitRate").value(0.75));
+    }
+
+    @Test
+    public void testCreateItems_ReportsPerElementErrors() throws Exception {
+        Item saved = new Item(1L, "test item", null, "unprocessed", "test@gmail.com");
+        when(itemService.createAll(anyList()))
+                .thenReturn(new BatchResult(List.of(saved), List.of(new BatchError(1, "invalid email"))));
+
+        mockMvc.perform(post("/api/items/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                new Item(null, "test item", null, "unprocessed", "test@gmail.com"),
+                                new Item(null, "bad item", null, "unprocessed", "invalid.email")))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.items[0].id").value(1L))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[0].message").value("invalid email"));
+    }
+
+    @Test
+    public void testUpdateItems_NothingUpdated_ReturnsBadRequest() throws Exception {
+        when(itemService.updateAll(anyList()))
+                .thenReturn(new BatchResult(List.of(), List.of(new BatchError(0, "item 23 not found"))));
+
+        mockMvc.perform(put("/api/items/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                new Item(23L, "test item", null, "unprocessed", "test@gmail.com")))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].message").value("item 23 not found"));
+    }
+
+    @Test
+    public void testProcessItemsInBulk_ReturnsAffectedCounts() throws Exception {
+        when(itemService.processItemsInBulk(500L, true)).thenReturn(new BulkProcessResult(2, 1, 3, List.of(1L, 3L), false));
+
+        mockMvc.perform(post("/api/items/process")
+                        .param("mode", "bulk")
+                        .param("rangeSize", "500")
+                        .param("returnIds", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2))
+                .andExpect(jsonPath("$.ids[1]").value(3L));
+
+        verify(itemService, never()).processItemsInBackground(any());
+    }
+
+    @Test
+    public void testProcessItemsInBulk_RangeSizeOutOfBounds_ReturnsBadRequest() throws Exception {
+        for (String rangeSize : new String[]{"0", String.valueOf(ItemController.MAX_BULK_RANGE_SIZE + 1), String.valueOf(Long.MAX_VALUE)}) {
+            mockMvc.perform(post("/api/items/process")
+                            .param("mode", "bulk")
+                            .param("rangeSize", rangeSize))
+                    .andExpect(status().isBadRequest());
+        }
+
+        verify(itemService, never()).processItemsInBulk(anyLong(), anyBoolean());
+    }
+
+    @Test
+    public void testPrometheusEndpoint_ExposesItemMetrics() throws Exception {
+        mockMvc.perform(get("/api/items/cache/stats"));
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("item_processing_chunk_seconds")))
+                .andExpect(content().string(containsString("item_executor_active")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")));
+    }
 
 }
@@ -0,0 +1,131 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class ItemImporterTests {
+
+    @Autowired
+    private ItemImporter itemImporter;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    public void setup() {
+        itemRepository.deleteAllInBatch();
+        ReflectionTestUtils.setField(itemImporter, "rejectsDir", dir);
+        // several insert batches per file
+        ReflectionTestUtils.setField(itemImporter, "batchSize", 2);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        ReflectionTestUtils.setField(itemImporter, "mapWindow", 64L * 1024 * 1024);
+        itemRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testImportCsv_HeaderQuotingAndRejects() throws IOException {
+        Path file = write("items.csv",
+                "email,name,status,description\r\n" +
+                "a@example.com,first,NEW,\"plain, with comma\"\r\n" +
+                "b@example.com,\"say \"\"hi\"\"\",NEW,\r\n" +
+                "\r\n" +
+                "not-an-email,bad,NEW,x\r\n" +
+                "c@example.com,short\r\n" +
+                "d@example.com,fourth,NEW,last\r\n");
+
+        ImportResult result = itemImporter.importFile(file, ImportFormat.CSV);
+
+        assertEquals(5, result.rows());
+        assertEquals(3, result.imported());
+        assertEquals(2, result.rejected());
+        assertEquals(0, result.failed());
+        // the batches are inserted in parallel, so the ids do not follow the file order
+        assertEquals("plain, with comma", byEmail("a@example.com").description());
+        assertEquals("say \"hi\"", byEmail("b@example.com").name());
+        assertNull(byEmail("b@example.com").description());
+        assertNotNull(byEmail("d@example.com").modifiedAt());
+        // the name only, in the rejects directory
+        assertEquals("items.csv.rejects", result.rejectsFile());
+        assertEquals(List.of("5\tinvalid email\tnot-an-email,bad,NEW,x", "6\texpected 4 fields\tc@example.com,short"),
+                Files.readAllLines(dir.resolve(result.rejectsFile())));
+    }
+
+    @Test
+    public void testImportCsv_LinesAcrossMappedWindows() throws IOException {
+        ReflectionTestUtils.setField(itemImporter, "mapWindow", 16L);
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            csv.append("item ").append(i).append(",description of item ").append(i).append(",NEW,user").append(i).append("@example.com\n");
+        }
+
+        ImportResult result = itemImporter.importFile(write("windows.csv", csv.toString()), ImportFormat.CSV);
+
+        assertEquals(25, result.imported());
+        assertNull(result.rejectsFile());
+        assertEquals("description of item 24", byEmail("user24@example.com").description());
+    }
+
+    @Test
+    public void testImportNdjson_IgnoresIdsAndRejectsMalformedLines() throws IOException {
+        Path file = write("items.ndjson",
+                "{\"id\":424242,\"name\":\"first\",\"status\":\"NEW\",\"email\":\"a@example.com\",\"version\":7}\n" +
+                "{\"name\":\"broken\"\n" +
+                "{\"name\":\"bad\",\"email\":\"nope\"}\n" +
+                "{\"name\":\"second\",\"email\":\"b@example.com\"}");
+
+        ImportResult result = itemImporter.importFile(file, ImportFormat.NDJSON);
+
+        assertEquals(4, result.rows());
+        assertEquals(2, result.imported());
+        assertEquals(2, result.rejected());
+        assertFalse(itemRepository.existsById(424242L));
+        assertEquals(0L, byEmail("a@example.com").version());
+        assertEquals(List.of("2\tmalformed JSON\t{\"name\":\"broken\"", "3\tinvalid email\t{\"name\":\"bad\",\"email\":\"nope\"}"),
+                Files.readAllLines(dir.resolve(result.rejectsFile())));
+    }
+
+    @Test
+    public void testImportNdjson_RejectsNullLines() throws IOException {
+        Path file = write("nulls.ndjson",
+                "null\n" +
+                "{\"name\":\"first\",\"email\":\"a@example.com\"}\n" +
+                "  null  \n");
+
+        ImportResult result = itemImporter.importFile(file, ImportFormat.NDJSON);
+
+        assertEquals(3, result.rows());
+        assertEquals(1, result.imported());
+        assertEquals(2, result.rejected());
+        assertEquals(0, result.failed());
+        assertEquals(List.of("1\tmalformed JSON\tnull", "3\tmalformed JSON\t  null  "),
+                Files.readAllLines(dir.resolve(result.rejectsFile())));
+    }
+
+    private ItemView byEmail(String email) {
+        return itemRepository.findViewsByEmailAndIdGreaterThanOrderByIdAsc(email, Long.MIN_VALUE, Pageable.unpaged()).get(0);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content);
+    }
+}
@@ -0,0 +1,283 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Opt-in load test of the whole stack (Tomcat, controller, service, JPA, H2): the application runs on a
+ * random port over an in-memory database seeded with load.seed-items items, and load.threads client threads
+ * send a weighted mix of requests (load.mix, operation=weight) for load.duration after load.warmup.
+ * Latency percentiles, the share of rejected requests and the number of successful ones per operation, the
+ * throughput of successful requests and the error rate are compared with load-baselines.properties.
+ * <p>
+ * Excluded from the default build, run with {@code mvn -Pload-test test}; the settings can be overridden
+ * with system properties, e.g. {@code -Dload.threads=32 -Dload.mix=get=80,put=20}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+        "logging.level.root=WARN"})
+public class ItemLoadTests {
+    private static final Logger log = LoggerFactory.getLogger(ItemLoadTests.class);
+
+    enum Operation { GET, POST, PUT, DELETE, PROCESS }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Value("${load.threads:16}")
+    private int threads;
+
+    @Value("${load.warmup:5s}")
+    private Duration warmup;
+
+    @Value("${load.duration:20s}")
+    private Duration duration;
+
+    @Value("${load.seed-items:5000}")
+    private int seedItems;
+
+    // fixed, so every run works on the same data and sends the same sequence of requests per thread
+    @Value("${load.random-seed:42}")
+    private long randomSeed;
+
+    @Value("${load.mix:get=60,post=10,put=20,delete=5,process=5}")
+    private String mix;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private long maxSeededId;
+
+    @BeforeEach
+    public void seed() {
+        itemRepository.deleteAllInBatch();
+        Random random = new Random(randomSeed);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < seedItems; i++) {
+            items.add(new Item(null, "item " + random.nextInt(1_000_000), "seeded for the load test",
+                    random.nextBoolean() ? "PROCESSED" : "UNPROCESSED", "user" + i + "@example.com"));
+        }
+        maxSeededId = itemService.createAll(items).items().stream().mapToLong(Item::getId).max().orElse(0);
+    }
+
+    @Test
+    public void testMixedLoad_StaysWithinBaselines() throws Exception {
+        Map<Operation, Integer> weights = parseMix(mix);
+        run(weights, warmup, randomSeed - 1);
+        List<Recorder> recorders = run(weights, duration, randomSeed);
+
+        Properties baselines = PropertiesLoaderUtils.loadProperties(new ClassPathResource("load-baselines.properties"));
+        List<Executable> checks = new ArrayList<>();
+        StringBuilder report = new StringBuilder(String.format("%n%-8s %8s %8s %8s %9s %9s %9s%n",
+                "op", "ok", "rejected", "errors", "p50 ms", "p95 ms", "p99 ms"));
+        long total = 0;
+        long served = 0;
+        long errors = 0;
+        int defaultMinSamples = Integer.parseInt(baselines.getProperty("samples.min", "1"));
+        for (Operation operation : weights.keySet()) {
+            long[] latencies = Recorder.merge(recorders, operation);
+            long rejected = recorders.stream().mapToLong(recorder -> recorder.rejected[operation.ordinal()]).sum();
+            long failed = recorders.stream().mapToLong(recorder -> recorder.errors[operation.ordinal()]).sum();
+            long sent = latencies.length + rejected + failed;
+            total += sent;
+            served += latencies.length;
+            errors += failed;
+            Arrays.sort(latencies);
+            report.append(String.format("%-8s %8d %8d %8d", operation, latencies.length, rejected, failed));
+
+            String name = operation.name().toLowerCase();
+            // percentiles of a handful of requests say nothing, and of none they would pass as 0 ms
+            int minSamples = Integer.parseInt(baselines.getProperty(name + ".samples.min", String.valueOf(defaultMinSamples)));
+            checks.add(() -> assertTrue(latencies.length >= minSamples,
+                    () -> String.format("%s: %d successful requests, fewer than the %d needed", name, latencies.length, minSamples)));
+            String rejectedKey = name + ".rejected.max-ratio";
+            if (baselines.containsKey(rejectedKey)) {
+                double ratio = sent == 0 ? 0 : (double) rejected / sent;
+                double limit = Double.parseDouble(baselines.getProperty(rejectedKey));
+                checks.add(() -> assertTrue(ratio <= limit,
+                        () -> String.format("%s: %.4f of the requests rejected, over the baseline of %.4f", name, ratio, limit)));
+            }
+            for (int percentile : new int[]{50, 95, 99}) {
+                double millis = percentile(latencies, percentile) / 1_000_000.0;
+                report.append(String.format(" %9.2f", millis));
+                String key = name + ".p" + percentile;
+                if (baselines.containsKey(key)) {
+                    double limit = Double.parseDouble(baselines.getProperty(key));
+                    checks.add(() -> assertTrue(millis <= limit,
+                            () -> String.format("%s: %.2f ms over the baseline of %.2f ms", key, millis, limit)));
+                }
+            }
+            report.append(System.lineSeparator());
+        }
+        // turning a request away is cheap, counting those would let a run that rejects more look faster
+        double throughput = served * 1000.0 / duration.toMillis();
+        double errorRate = total == 0 ? 0 : (double) errors / total;
+        report.append(String.format("%d requests (%d successful) from %d threads in %s: %.1f successful requests/s, %.2f%% errors",
+                total, served, threads, duration, throughput, errorRate * 100));
+        log.warn("Load test results:{}", report);
+
+        double minThroughput = Double.parseDouble(baselines.getProperty("throughput.min", "0"));
+        double maxErrorRate = Double.parseDouble(baselines.getProperty("error-rate.max", "0"));
+        checks.add(() -> assertTrue(throughput >= minThroughput,
+                () -> String.format("%.1f successful requests/s under the baseline of %.1f", throughput, minThroughput)));
+        checks.add(() -> assertTrue(errorRate <= maxErrorRate,
+                () -> String.format("error rate %.4f over the baseline of %.4f", errorRate, maxErrorRate)));
+        assertAll(checks);
+    }
+
+    // every client thread sends requests until the time is up, recording into its own Recorder
+    private List<Recorder> run(Map<Operation, Integer> weights, Duration length, long seed) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + length.toNanos();
+        try {
+            List<Future<Recorder>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Random random = new Random(seed * 31 + t);
+                workers.add(pool.submit(() -> {
+                    Recorder recorder = new Recorder();
+                    while (System.nanoTime() < deadline) {
+                        Operation operation = pick(weights, random);
+                        HttpRequest request = request(operation, random);
+                        long started = System.nanoTime();
+                        int status;
+                        boolean retryAfter;
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            status = response.statusCode();
+                            retryAfter = response.headers().firstValue("Retry-After").isPresent();
+                        } catch (IOException e) {
+                            status = -1;
+                            retryAfter = false;
+                        }
+                        recorder.record(operation, status, retryAfter, System.nanoTime() - started);
+                    }
+                    return recorder;
+                }));
+            }
+            List<Recorder> recorders = new ArrayList<>();
+            for (Future<Recorder> worker : workers) {
+                recorders.add(worker.get());
+            }
+            return recorders;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private HttpRequest request(Operation operation, Random random) {
+        String base = "http://localhost:" + port + "/api/items";
+        // mostly seeded ids, so reads and writes hit existing rows until they are deleted
+        long id = 1 + (long) (random.nextDouble() * maxSeededId);
+        int n = random.nextInt(1_000_000);
+        String body = "{\"name\":\"item " + n + "\",\"description\":\"written by the load test\","
+                + "\"status\":\"UNPROCESSED\",\"email\":\"load" + n + "@example.com\"}";
+        HttpRequest.Builder request = switch (operation) {
+            case GET -> HttpRequest.newBuilder(URI.create(base + "/" + id)).GET();
+            case POST -> HttpRequest.newBuilder(URI.create(base)).POST(HttpRequest.BodyPublishers.ofString(body));
+            case PUT -> HttpRequest.newBuilder(URI.create(base + "/" + id)).PUT(HttpRequest.BodyPublishers.ofString(body));
+            case DELETE -> HttpRequest.newBuilder(URI.create(base + "/" + id)).DELETE();
+            case PROCESS -> HttpRequest.newBuilder(URI.create(base + "/process")).GET();
+        };
+        return request.header("Content-Type", "application/json").timeout(Duration.ofSeconds(60)).build();
+    }
+
+    private static Operation pick(Map<Operation, Integer> weights, Random random) {
+        int left = random.nextInt(weights.values().stream().mapToInt(Integer::intValue).sum());
+        for (Map.Entry<Operation, Integer> weight : weights.entrySet()) {
+            left -= weight.getValue();
+            if (left < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("empty mix");
+    }
+
+    // "get=60,put=20,..." in a fixed operation order
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] entry = part.trim().split("=");
+            int weight = Integer.parseInt(entry[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.valueOf(entry[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("load.mix has no operation with a weight: " + mix);
+        }
+        return weights;
+    }
+
+    // nearest rank, nanoseconds; 0 without samples
+    private static long percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    // Latencies of one client thread, merged once the run is over. Only successful requests count
+    // towards the latencies. Admission control turning a request away is it doing its job, not an error:
+    // 429 while a processing run is going, 503 with Retry-After from a full bulkhead (see AdmissionConfig)
+    private static class Recorder {
+        private final long[][] latencies = new long[Operation.values().length][1024];
+        private final int[] sizes = new int[Operation.values().length];
+        private final long[] rejected = new long[Operation.values().length];
+        private final long[] errors = new long[Operation.values().length];
+
+        void record(Operation operation, int status, boolean retryAfter, long nanos) {
+            int op = operation.ordinal();
+            if (status == 429 || status == 503 && retryAfter) {
+                rejected[op]++;
+            } else if (status < 200 || status >= 300) {
+                errors[op]++;
+            } else {
+                if (sizes[op] == latencies[op].length) {
+                    latencies[op] = Arrays.copyOf(latencies[op], sizes[op] * 2);
+                }
+                latencies[op][sizes[op]++] = nanos;
+            }
+        }
+
+        static long[] merge(List<Recorder> recorders, Operation operation) {
+            int op = operation.ordinal();
+            long[] merged = new long[recorders.stream().mapToInt(recorder -> recorder.sizes[op]).sum()];
+            int at = 0;
+            for (Recorder recorder : recorders) {
+                System.arraycopy(recorder.latencies[op], 0, merged, at, recorder.sizes[op]);
+                at += recorder.sizes[op];
+            }
+            return merged;
+        }
+    }
+}
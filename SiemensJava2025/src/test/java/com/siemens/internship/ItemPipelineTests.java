@@ -0,0 +1,113 @@
+package com.siemens.internship;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemPipelineTests {
+
+    private final List<ItemTaskExecutor> executors = new ArrayList<>();
+
+    @AfterEach
+    public void shutdown() {
+        executors.forEach(ItemTaskExecutor::close);
+    }
+
+    @Test
+    public void testProcess_BatchesRunOnStageThreadsInChunkOrder() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        ItemProcessor enrich = new ItemProcessor() {
+            @Override
+            public String name() {
+                return "enrich";
+            }
+
+            @Override
+            public List<Item> process(List<Item> batch) {
+                threads.add(Thread.currentThread().getName());
+                batch.forEach(item -> item.setDescription("enriched"));
+                return batch;
+            }
+        };
+        ItemPipeline pipeline = new ItemPipeline(List.of(stage(enrich, 3, 2), stage(new MarkProcessedStage(), 1, 4)),
+                new ItemMetrics(new SimpleMeterRegistry()));
+        List<Item> items = items(10);
+        items.get(4).setStatus("PROCESSED");
+
+        ItemPipeline.Run run = pipeline.newRun();
+        ItemPipeline.Result result = run.process(items);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 6L, 7L, 8L, 9L, 10L), result.passed().stream().map(Item::getId).toList());
+        assertTrue(result.failedIds().isEmpty());
+        assertTrue(items.stream().allMatch(item -> "enriched".equals(item.getDescription()) && "PROCESSED".equals(item.getStatus())));
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("enrich-")));
+
+        List<ItemPipeline.StageStats> stats = run.stats();
+        assertEquals(new ItemPipeline.StageStats("enrich", 10, 10, 0, 0, 5, stats.get(0).busyNanos()), stats.get(0));
+        assertEquals(new ItemPipeline.StageStats(MarkProcessedStage.NAME, 10, 9, 1, 0, 3, stats.get(1).busyNanos()), stats.get(1));
+    }
+
+    @Test
+    public void testProcess_FailingBatchIsRetriedItemByItem() {
+        List<Integer> batchSizes = new ArrayList<>();
+        ItemProcessor validate = new ItemProcessor() {
+            @Override
+            public String name() {
+                return "validate";
+            }
+
+            @Override
+            public synchronized List<Item> process(List<Item> batch) {
+                batchSizes.add(batch.size());
+                if (batch.stream().anyMatch(item -> item.getId() == 2L)) {
+                    throw new IllegalArgumentException("invalid item");
+                }
+                return batch;
+            }
+        };
+        ItemPipeline pipeline = new ItemPipeline(List.of(stage(validate, 1, 3), stage(new MarkProcessedStage(), 1, 3)),
+                new ItemMetrics(new SimpleMeterRegistry()));
+        List<Item> items = items(4);
+
+        ItemPipeline.Run run = pipeline.newRun();
+        ItemPipeline.Result result = run.process(items);
+
+        assertEquals(List.of(1L, 3L, 4L), result.passed().stream().map(Item::getId).toList());
+        assertEquals(List.of(2L), result.failedIds());
+        // the failing item never reaches the next stage
+        assertEquals("UNPROCESSED", items.get(1).getStatus());
+        // batch of 3 failed, re-run one by one, then the last batch of 1
+        assertEquals(List.of(3, 1, 1, 1, 1), batchSizes);
+        assertEquals(1, run.stats().get(0).failed());
+        assertEquals(3, run.stats().get(1).items());
+    }
+
+    private ItemPipeline.Stage stage(ItemProcessor processor, int parallelism, int batchSize) {
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setThreadNamePrefix(processor.name() + "-");
+        pool.setCorePoolSize(parallelism);
+        pool.setMaxPoolSize(parallelism);
+        pool.setQueueCapacity(parallelism + 1);
+        pool.initialize();
+        ItemTaskExecutor executor = new ItemTaskExecutor(pool, parallelism + 1, Duration.ofSeconds(1));
+        executors.add(executor);
+        return new ItemPipeline.Stage(processor, executor, batchSize);
+    }
+
+    private static List<Item> items(int count) {
+        List<Item> items = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            items.add(new Item(id, "item " + id, null, "UNPROCESSED", "user" + id + "@example.com"));
+        }
+        return items;
+    }
+}
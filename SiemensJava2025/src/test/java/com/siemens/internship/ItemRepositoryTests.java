@@ -0,0 +1,156 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class ItemRepositoryTests {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    private List<Item> saved;
+
+    @BeforeEach
+    public void setup() {
+        saved = itemRepository.saveAll(List.of(
+                item("UNPROCESSED", "a@example.com"),
+                item("PROCESSED", "a@example.com"),
+                item("UNPROCESSED", "b@example.com"),
+                item("UNPROCESSED", "a@example.com"),
+                item("PROCESSED", "b@example.com")));
+    }
+
+    private Item item(String status, String email) {
+        Item item = new Item();
+        item.setName("item");
+        item.setStatus(status);
+        item.setEmail(email);
+        return item;
+    }
+
+    @Test
+    public void testKeysetPage_ContinuesAfterCursor() {
+        List<ItemView> first = itemRepository.findViewsByIdGreaterThan(Long.MIN_VALUE, PageRequest.of(0, 2));
+        List<ItemView> second = itemRepository.findViewsByIdGreaterThan(first.get(1).id(), PageRequest.of(0, 2));
+
+        assertEquals(List.of(saved.get(0).getId(), saved.get(1).getId()), first.stream().map(ItemView::id).toList());
+        assertEquals(List.of(saved.get(2).getId(), saved.get(3).getId()), second.stream().map(ItemView::id).toList());
+    }
+
+    @Test
+    public void testKeysetPage_FiltersByStatusAndEmail() {
+        List<ItemView> unprocessed = itemRepository.findViewsByStatusAndIdGreaterThanOrderByIdAsc(
+                "UNPROCESSED", saved.get(0).getId(), PageRequest.of(0, 10));
+        List<ItemView> forEmail = itemRepository.findViewsByEmailAndIdGreaterThanOrderByIdAsc(
+                "b@example.com", Long.MIN_VALUE, PageRequest.of(0, 10));
+        List<ItemView> both = itemRepository.findViewsByStatusAndEmailAndIdGreaterThanOrderByIdAsc(
+                "UNPROCESSED", "a@example.com", Long.MIN_VALUE, PageRequest.of(0, 10));
+
+        assertEquals(List.of(saved.get(2).getId(), saved.get(3).getId()), unprocessed.stream().map(ItemView::id).toList());
+        assertEquals(List.of(saved.get(2).getId(), saved.get(4).getId()), forEmail.stream().map(ItemView::id).toList());
+        assertEquals(List.of(saved.get(0).getId(), saved.get(3).getId()), both.stream().map(ItemView::id).toList());
+        assertEquals("b@example.com", forEmail.get(0).email());
+    }
+
+    @Test
+    public void testIdsComeFromOnePooledBlock() {
+        List<Item> more = itemRepository.saveAll(List.of(item("UNPROCESSED", "c@example.com"), item("UNPROCESSED", "d@example.com")));
+
+        // all seven rows fit in the first allocation, so the ids are consecutive without another sequence call
+        assertEquals(saved.get(0).getId() + 5, more.get(0).getId());
+        assertEquals(saved.get(0).getId() + 6, more.get(1).getId());
+    }
+
+    @Test
+    public void testMarkProcessedInRange_UpdatesOnlyUnprocessedRowsOfTheRange() {
+        Long first = saved.get(0).getId();
+
+        List<Long> pending = itemRepository.findUnprocessedIdsInRange(first - 1, first + 2);
+        int updated = itemRepository.markProcessedInRange(first - 1, first + 2, Instant.now());
+
+        assertEquals(List.of(first, first + 2), pending);
+        assertEquals(2, updated);
+        assertEquals("PROCESSED", itemRepository.findById(first).orElseThrow().getStatus());
+        assertEquals("UNPROCESSED", itemRepository.findById(first + 3).orElseThrow().getStatus());
+        assertEquals(first, itemRepository.findMinId());
+        assertEquals(first + 4, itemRepository.findMaxId());
+    }
+
+    @Test
+    public void testConditionalUpdateAndDelete_CompareVersions() {
+        Long id = saved.get(0).getId();
+        Long version = saved.get(0).getVersion();
+
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+        assertEquals(0, itemRepository.updateContentIfVersion(id, version + 1, "renamed", null, "NEW", "a@example.com", now));
+        assertEquals(1, itemRepository.updateContentIfVersion(id, version, "renamed", null, "NEW", "a@example.com", now));
+        assertEquals(1, itemRepository.updateContent(id, "renamed again", null, "NEW", "a@example.com", now));
+        assertEquals(0, itemRepository.updateContent(-1L, "missing", null, "NEW", "a@example.com", now));
+
+        Item stored = itemRepository.findById(id).orElseThrow();
+        assertEquals("renamed again", stored.getName());
+        assertEquals(version + 2, stored.getVersion());
+        assertEquals(now, stored.getModifiedAt());
+
+        assertEquals(0, itemRepository.deleteItemIfVersion(id, version));
+        assertEquals(1, itemRepository.deleteItemIfVersion(id, version + 2));
+        assertEquals(0, itemRepository.deleteItem(id));
+    }
+
+    @Test
+    public void testKeysModifiedBetween_WalksChangedRowsInModificationOrder() {
+        Instant since = Instant.parse("2025-01-01T00:00:00Z");
+        Instant until = since.plusSeconds(100);
+        Long first = saved.get(0).getId();
+        // rows 1 and 3 changed inside the window (3 first), row 4 after it; the others keep their insert time
+        itemRepository.updateContent(first + 2, "changed", null, "UNPROCESSED", "b@example.com", since.plusSeconds(10));
+        itemRepository.updateContent(first, "changed", null, "UNPROCESSED", "a@example.com", since.plusSeconds(20));
+        itemRepository.updateContent(first + 3, "changed", null, "UNPROCESSED", "a@example.com", until);
+        itemRepository.findAll().stream()
+                .filter(item -> item.getModifiedAt().isAfter(until))
+                .forEach(item -> itemRepository.updateContent(item.getId(), item.getName(), null, item.getStatus(), item.getEmail(), since));
+
+        List<ItemKey> page = itemRepository.findKeysModifiedBetween(since, until, Long.MIN_VALUE, Long.MAX_VALUE,
+                since, Long.MIN_VALUE, PageRequest.of(0, 1));
+        ItemKey cursor = page.get(0);
+        List<ItemKey> next = itemRepository.findKeysModifiedBetween(since, until, Long.MIN_VALUE, Long.MAX_VALUE,
+                cursor.modifiedAt(), cursor.id(), PageRequest.of(0, 10));
+        List<ItemKey> inRange = itemRepository.findKeysModifiedBetween(since, until, first, Long.MAX_VALUE,
+                since, Long.MIN_VALUE, PageRequest.of(0, 10));
+
+        assertEquals(List.of(first + 2), page.stream().map(ItemKey::id).toList());
+        assertEquals(List.of(first), next.stream().map(ItemKey::id).toList());
+        assertEquals(List.of(first + 2), inRange.stream().map(ItemKey::id).toList());
+    }
+
+    @Test
+    public void testStreamAllViews_SameAsAllViews() {
+        List<ItemView> streamed;
+        try (Stream<ItemView> views = itemRepository.streamAllViews()) {
+            streamed = views.toList();
+        }
+
+        assertEquals(itemRepository.findAllViews(), streamed);
+    }
+
+    @Test
+    public void testAllViews_InIdOrderWithItemContent() {
+        List<ItemView> views = itemRepository.findAllViews();
+
+        assertEquals(saved.stream().map(Item::getId).toList(), views.stream().map(ItemView::id).toList());
+        assertEquals("b@example.com", views.get(2).email());
+        assertEquals(saved.get(2).getVersion(), views.get(2).version());
+    }
+}
@@ -0,0 +1,131 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class ItemSearchIndexTests {
+
+    @Autowired
+    private ItemSearchIndex searchIndex;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    private List<Item> items;
+
+    @BeforeEach
+    public void setup() {
+        itemRepository.deleteAllInBatch();
+        items = itemService.createAll(List.of(
+                new Item(null, "Red bicycle", "A fast bike for the city", "NEW", "a@example.com"),
+                new Item(null, "Blue car", "Faster than a red bicycle", "NEW", "b@example.com"),
+                new Item(null, "Bicycle pump", "Fits every tyre", "NEW", "c@example.com"),
+                new Item(null, "Garden chair", null, "NEW", "d@example.com"))).items();
+        searchIndex.rebuild();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        itemRepository.deleteAllInBatch();
+        searchIndex.rebuild();
+    }
+
+    @Test
+    public void testSearch_RanksNameMatchesFirstAndPages() {
+        ItemSearchPage first = itemService.search("Bicycle", 0, 2).orElseThrow();
+        ItemSearchPage second = itemService.search("bicycle", 2, 2).orElseThrow();
+
+        assertEquals(3, first.total());
+        assertTrue(first.totalExact());
+        // in the name before in the description, then by id
+        assertEquals(List.of("Red bicycle", "Bicycle pump"), first.hits().stream().map(hit -> hit.item().name()).toList());
+        assertEquals(List.of("Blue car"), second.hits().stream().map(hit -> hit.item().name()).toList());
+        assertTrue(first.hits().get(0).score() > second.hits().get(0).score());
+    }
+
+    @Test
+    public void testSearch_AllWordsAndLastOneAsPrefix() {
+        assertEquals(ids(0, 1), hitIds("red bicyc"));
+        // "fast" and "faster", equally rare
+        assertEquals(ids(0, 1), hitIds("fast"));
+        assertEquals(ids(1), hitIds("bicycle faster"));
+        assertEquals(0, itemService.search("bicycle chair", 0, 10).orElseThrow().total());
+        assertEquals(0, itemService.search("!!", 0, 10).orElseThrow().total());
+    }
+
+    @Test
+    public void testSearch_StopsOnceThePageIsSettled() {
+        List<Item> lamps = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            lamps.add(new Item(null, i % 3 == 0 ? "Lamp " + i : "Shade " + i, "A large lamp", "NEW", "l@example.com"));
+        }
+        List<Item> created = itemService.createAll(lamps).items();
+        searchIndex.rebuild();
+
+        ItemSearchPage page = itemService.search("la", 0, 3).orElseThrow();
+
+        // lamp in the name scores best, the rest of the lamps and every large item cannot beat the page
+        assertEquals(List.of(created.get(0).getId(), created.get(3).getId(), created.get(6).getId()),
+                page.hits().stream().map(hit -> hit.item().id()).toList());
+        assertFalse(page.totalExact());
+        assertTrue(page.total() >= 3 && page.total() <= 30);
+        ItemSearchPage all = itemService.search("la", 0, 40).orElseThrow();
+        assertEquals(30, all.total());
+        assertTrue(all.totalExact());
+    }
+
+    @Test
+    public void testSearch_DenseListsIntersectLikeShortOnes() {
+        List<Item> boxes = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            boxes.add(new Item(null, "Box " + (i % 2 == 0 ? "even" : "odd"), i % 7 == 0 ? "heavy" : "light", "NEW", "x@example.com"));
+        }
+        itemService.createAll(boxes);
+        searchIndex.rebuild();
+        // "box" is in every item, so it gets a bitmap
+        itemService.save(new Item(null, "Box even", "heavy", "NEW", "y@example.com"));
+
+        assertEquals(1000, itemService.search("box odd", 0, 2000).orElseThrow().total());
+        ItemSearchPage heavy = itemService.search("box even heavy", 0, 1000).orElseThrow();
+        assertEquals(144, heavy.total());
+        assertTrue(heavy.totalExact());
+        assertEquals(heavy.total(), itemService.search("heavy box even", 0, 1000).orElseThrow().total());
+    }
+
+    @Test
+    public void testWrites_KeepIndexUpToDate() {
+        Item chair = items.get(3);
+        chair.setName("Garden bench");
+        itemService.save(chair);
+        itemService.deleteById(items.get(2).getId());
+        Item created = itemService.save(new Item(null, "Bicycle bell", null, "NEW", "e@example.com"));
+        itemService.processItemsAsync(true);
+
+        assertEquals(List.of(), hitIds("chair"));
+        assertEquals(List.of(chair.getId()), hitIds("bench"));
+        assertEquals(List.of(items.get(0).getId(), created.getId(), items.get(1).getId()), hitIds("bicycle"));
+        assertEquals(List.of(), hitIds("pump"));
+        assertEquals(4, searchIndex.size());
+    }
+
+    private List<Long> hitIds(String query) {
+        return itemService.search(query, 0, 10).orElseThrow().hits().stream().map(hit -> hit.item().id()).toList();
+    }
+
+    private List<Long> ids(int... indexes) {
+        return Arrays.stream(indexes).mapToObj(i -> items.get(i).getId()).toList();
+    }
+}
@@ -1,11 +1,23 @@
 package com.siemens.internship;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.boot.test.context.SpringBootTest;
-
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,6 +29,44 @@ public class ItemServiceTests {
     @Mock
     private ItemRepository itemRepository;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ProcessingCheckpointRepository checkpointRepository;
+
+    @Mock
+    private WorkLeaseService workLeaseService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ProcessingFailureRepository failureRepository;
+
+    @Mock
+    private ItemChangeTracker itemChangeTracker;
+
+    @Spy
+    private ItemCache itemCache = new ItemCache(100, Duration.ofMinutes(5));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private ItemMetrics itemMetrics = new ItemMetrics(meterRegistry);
+
+    // runs the chunks on the calling thread
+    @Spy
+    private ItemTaskExecutor itemTaskExecutor = new ItemTaskExecutor(new TaskExecutorAdapter(Runnable::run), 2, Duration.ofSeconds(1));
+
+    // never built, so it ignores the writes
+    @Spy
+    private ItemSearchIndex itemSearchIndex = new ItemSearchIndex();
+
+    // the default pipeline, also on the calling thread
+    @Spy
+    private ItemPipeline itemPipeline = new ItemPipeline(List.of(stage(new MarkProcessedStage())), itemMetrics);
+
     @InjectMocks
     private ItemService itemService;
 
@@ -43,41 +93,112 @@ public class ItemServiceTests {
 
         processedItems.addAll(Arrays.asList(item1, item2, item3));
 
-        when(itemRepository.findAllIds()).thenReturn(Arrays.asList(1L, 2L, 3L));
+        ReflectionTestUtils.setField(itemService, "chunkSize", 2);
+        ReflectionTestUtils.setField(itemService, "maxRetries", 3);
+        ReflectionTestUtils.setField(itemService, "maxFailedIds", 100);
+        ReflectionTestUtils.setField(itemService, "maxItemAttempts", 3);
+        ReflectionTestUtils.setField(itemService, "watermarkLag", Duration.ofSeconds(5));
+        mockRepository();
+    }
+
+    private static ItemPipeline.Stage stage(ItemProcessor processor) {
+        return new ItemPipeline.Stage(processor, new ItemTaskExecutor(new TaskExecutorAdapter(Runnable::run), 2, Duration.ofSeconds(1)), 100);
+    }
+
+    // keyset reads and batched writes against the simulated in-memory DB
+    private void mockRepository() {
+        when(itemRepository.findViewsByIdGreaterThan(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            Long after = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return processedItems.stream()
+                    .filter(i -> i.getId() > after)
+                    .sorted(Comparator.comparing(Item::getId))
+                    .limit(page.getPageSize())
+                    .map(ItemView::of)
+                    .toList();
+        });
 
-        when(itemRepository.findById(anyLong())).thenAnswer(invocation -> {
-            Long id = invocation.getArgument(0);
-            return processedItems.stream().filter(i -> i.getId().equals(id)).findFirst();
+        when(itemRepository.findIdsBetween(anyLong(), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            Long after = invocation.getArgument(0);
+            Long last = invocation.getArgument(1);
+            Pageable page = invocation.getArgument(2);
+            return processedItems.stream()
+                    .map(Item::getId)
+                    .filter(id -> id > after && id <= last)
+                    .sorted()
+                    .limit(page.getPageSize())
+                    .toList();
         });
 
-        when(itemRepository.save(any(Item.class))).thenAnswer(invocation -> {
-            Item updated = invocation.getArgument(0);
+        when(itemRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(anyLong(), anyLong())).thenAnswer(invocation -> {
+            Long after = invocation.getArgument(0);
+            Long last = invocation.getArgument(1);
+            return processedItems.stream()
+                    .filter(i -> i.getId() > after && i.getId() <= last)
+                    .sorted(Comparator.comparing(Item::getId))
+                    .toList();
+        });
+
+        // (modifiedAt, id) keyset of the rows modified in the window
+        when(itemRepository.findKeysModifiedBetween(any(), any(), anyLong(), anyLong(), any(), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            Instant since = invocation.getArgument(0);
+            Instant until = invocation.getArgument(1);
+            Long rangeStart = invocation.getArgument(2);
+            Long rangeEnd = invocation.getArgument(3);
+            Instant afterModifiedAt = invocation.getArgument(4);
+            Long afterId = invocation.getArgument(5);
+            Pageable page = invocation.getArgument(6);
+            Comparator<ItemKey> order = Comparator.comparing(ItemKey::modifiedAt).thenComparing(ItemKey::id);
+            ItemKey after = new ItemKey(afterId, afterModifiedAt);
+            return processedItems.stream()
+                    .filter(i -> i.getModifiedAt() != null && i.getModifiedAt().isAfter(since) && i.getModifiedAt().isBefore(until))
+                    .filter(i -> i.getId() > rangeStart && i.getId() <= rangeEnd)
+                    .map(i -> new ItemKey(i.getId(), i.getModifiedAt()))
+                    .filter(key -> order.compare(key, after) > 0)
+                    .sorted(order)
+                    .limit(page.getPageSize())
+                    .toList();
+        });
+
+        when(itemRepository.findAllById(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return processedItems.stream().filter(i -> ids.contains(i.getId())).toList();
+        });
+
+        when(itemRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Item> updated = invocation.getArgument(0);
             // Simulate update
-            processedItems.removeIf(i -> i.getId().equals(updated.getId()));
-            processedItems.add(updated);
+            for (Item item : updated) {
+                processedItems.removeIf(i -> i.getId().equals(item.getId()));
+                processedItems.add(item);
+            }
             return updated;
         });
     }
 
     @Test
     public void testProcessItemsAsync_shouldUpdateOnlyUnprocessedItems() {
-        List<Item> processedItems = itemService.processItemsAsync();
+        ProcessingJobStatus summary = itemService.processItemsAsync();
 
         // Assert that only 2 of 3 items were processed
-        assertEquals(2, processedItems.size());
-
-        // Assert all returned items are marked as PROCESSED
-        assertTrue(processedItems.stream().allMatch(i -> "PROCESSED".equals(i.getStatus())));
+        assertEquals(ProcessingJob.State.COMPLETED, summary.state());
+        assertEquals(2, summary.processed());
+        assertEquals(1, summary.skipped());
+        assertEquals(List.of(), summary.failedIds());
 
         // Check in-memory DB: all items should now be PROCESSED
         for (Item item : processedItems) {
             assertEquals("PROCESSED", item.getStatus());
         }
 
-        // Verify interactions
-        verify(itemRepository, times(1)).findAllIds();
-        verify(itemRepository, times(3)).findById(anyLong());
-        verify(itemRepository, times(2)).save(any(Item.class));
+        // Verify interactions: two chunks of at most 2 items plus the empty read that ends the run,
+        // each chunk read as one id range and written back with one batched write, no per-item reads or writes
+        verify(itemRepository, times(3)).findIdsBetween(anyLong(), anyLong(), any(Pageable.class));
+        verify(itemRepository, times(2)).findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(anyLong(), anyLong());
+        verify(itemRepository, times(2)).saveAll(anyList());
+        verify(itemTaskExecutor, times(2)).submit(any());
+        verify(itemRepository, never()).findById(anyLong());
+        verify(itemRepository, never()).save(any(Item.class));
     }
 
     @Test
@@ -90,35 +211,595 @@ public class ItemServiceTests {
 
         processedItems.addAll(Arrays.asList(item1, item2, item3));
 
-        when(itemRepository.findAllIds()).thenReturn(Arrays.asList(1L, 2L, 3L));
+        ProcessingJobStatus summary = itemService.processItemsAsync();
 
-        when(itemRepository.findById(anyLong())).thenAnswer(invocation -> {
-            Long id = invocation.getArgument(0);
-            return processedItems.stream().filter(i -> i.getId().equals(id)).findFirst();
-        });
+        // Assert: All 3 should be processed
+        assertEquals(3, summary.processed());
 
-        when(itemRepository.save(any(Item.class))).thenAnswer(invocation -> {
-            Item updated = invocation.getArgument(0);
-            processedItems.removeIf(i -> i.getId().equals(updated.getId()));
-            processedItems.add(updated);
-            return updated;
-        });
+        // verify that all items in the DB are processed
+        for (Item item : processedItems) {
+            assertEquals("PROCESSED", item.getStatus());
+        }
 
+        verify(itemRepository, times(3)).findIdsBetween(anyLong(), anyLong(), any(Pageable.class));
+        verify(itemRepository, times(2)).saveAll(anyList());
+        verify(itemRepository, never()).save(any(Item.class));
+    }
 
-        List<Item> processedItems = itemService.processItemsAsync();
+    @Test
+    public void testProcessItemsInBackground_ReportsProgressOnJob() {
+        when(itemRepository.count()).thenReturn(3L);
+        ProcessingJob job = new ProcessingJob();
+
+        ProcessingJob finished = itemService.processItemsInBackground(job).join();
+
+        assertSame(job, finished);
+        assertEquals(ProcessingJob.State.COMPLETED, job.getState());
+        ProcessingJobStatus status = job.status();
+        assertEquals(3, status.total());
+        assertEquals(2, status.processed());
+        assertEquals(1, status.skipped());
+        assertEquals(0, status.failed());
+        assertNull(status.etaSeconds());
+    }
 
-        // Assert: All 3 should be returned and processed
-        assertEquals(3, processedItems.size());
-        assertTrue(processedItems.stream().allMatch(i -> "PROCESSED".equals(i.getStatus())));
+    @Test
+    public void testProcessItemsInBackground_CancelledJobStopsBeforeNextChunk() {
+        ProcessingJob job = new ProcessingJob();
+        job.requestCancel();
 
-        // verify that all items in the DB are processed
-        for (Item item : processedItems) {
-            assertEquals("PROCESSED", item.getStatus());
+        itemService.processItemsInBackground(job).join();
+
+        assertEquals(ProcessingJob.State.CANCELLED, job.getState());
+        verify(itemRepository, never()).findIdsBetween(anyLong(), anyLong(), any(Pageable.class));
+        verify(itemRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    public void testProcessItemsInBackground_ReadFailureFailsJob() {
+        when(itemRepository.findIdsBetween(anyLong(), anyLong(), any(Pageable.class)))
+                .thenThrow(new IllegalStateException("database unavailable"));
+        ProcessingJob job = new ProcessingJob();
+
+        CompletableFuture<ProcessingJob> future = itemService.processItemsInBackground(job);
+
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(ProcessingJob.State.FAILED, job.getState());
+        assertEquals("database unavailable", job.status().error());
+    }
+
+    @Test
+    public void testFindPage_ReturnsCursorOnlyWhenMoreItemsFollow() {
+        ItemPage first = itemService.findPage(null, 2, null, null);
+        ItemPage last = itemService.findPage(first.nextCursor(), 2, null, null);
+
+        assertEquals(List.of(1L, 2L), first.items().stream().map(ItemView::id).toList());
+        assertEquals(2L, first.nextCursor());
+        assertEquals(List.of(3L), last.items().stream().map(ItemView::id).toList());
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    public void testFindById_SecondReadIsServedFromCache() {
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(processedItems.get(0)));
+
+        assertTrue(itemService.findById(1L).isPresent());
+        assertTrue(itemService.findById(1L).isPresent());
+
+        verify(itemRepository, times(1)).findById(1L);
+        ItemCacheStats stats = itemService.cacheStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+    }
+
+    @Test
+    public void testFindById_MissingItemIsNotCached() {
+        when(itemRepository.findById(42L)).thenReturn(Optional.empty());
+
+        assertTrue(itemService.findById(42L).isEmpty());
+        assertTrue(itemService.findById(42L).isEmpty());
+
+        verify(itemRepository, times(2)).findById(42L);
+    }
+
+    @Test
+    public void testSaveAndDelete_KeepCacheInSync() {
+        Item item = new Item();
+        item.setId(7L);
+        item.setName("cached");
+        when(itemRepository.save(item)).thenReturn(item);
+
+        itemService.save(item);
+        assertSame(item, itemService.findById(7L).orElseThrow());
+        verify(itemRepository, never()).findById(7L);
+
+        itemService.deleteById(7L);
+        when(itemRepository.findById(7L)).thenReturn(Optional.empty());
+        assertTrue(itemService.findById(7L).isEmpty());
+    }
+
+    @Test
+    public void testProcessItemsAsync_InvalidatesUpdatedItems() {
+        itemCache.put(processedItems.get(0));
+        itemCache.put(processedItems.get(1));
+
+        itemService.processItemsAsync();
+
+        // item 1 was updated by the run, item 2 was already processed and stays cached
+        verify(itemCache).invalidateAll(List.of(1L));
+        verify(itemCache).invalidateAll(List.of(3L));
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(processedItems.get(0)));
+        itemService.findById(1L);
+        itemService.findById(2L);
+        verify(itemRepository, times(1)).findById(1L);
+        verify(itemRepository, never()).findById(2L);
+    }
+
+    @Test
+    public void testCreateAll_SavesValidItemsAndReportsInvalidOnes() {
+        Item valid = new Item(5L, "new item", null, "UNPROCESSED", "new@example.com");
+        Item invalid = new Item(null, "bad item", null, "UNPROCESSED", "not-an-email");
+        when(itemRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BatchResult result = itemService.createAll(Arrays.asList(valid, invalid, null));
+
+        assertEquals(1, result.items().size());
+        assertNull(result.items().get(0).getId());
+        assertEquals(List.of(new BatchError(1, "invalid email"), new BatchError(2, "item is missing")), result.errors());
+        verify(itemRepository, times(1)).saveAll(List.of(valid));
+    }
+
+    @Test
+    public void testUpdateAll_LoadsTargetsOnceAndReportsUnknownIds() {
+        BatchResult result = itemService.updateAll(List.of(
+                new Item(1L, "renamed", "changed", "UNPROCESSED", "one@example.com"),
+                new Item(99L, "ghost", null, "UNPROCESSED", "ghost@example.com"),
+                new Item(1L, "again", null, "UNPROCESSED", "one@example.com"),
+                new Item(null, "no id", null, "UNPROCESSED", "none@example.com")));
+
+        assertEquals(1, result.items().size());
+        Item stored = processedItems.stream().filter(i -> i.getId() == 1L).findFirst().orElseThrow();
+        assertEquals("renamed", stored.getName());
+        assertEquals("one@example.com", stored.getEmail());
+        assertEquals(List.of(
+                new BatchError(1, "item 99 not found"),
+                new BatchError(2, "duplicate id 1"),
+                new BatchError(3, "id is required")), result.errors());
+        verify(itemRepository, times(1)).findAllById(any());
+        verify(itemRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    public void testUpdate_InvalidatesCacheOnlyOnceCommitted() {
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(processedItems.get(0)));
+        itemService.findById(1L);
+        when(itemRepository.updateContent(eq(1L), any(), any(), any(), any(), any())).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            itemService.update(1L, new Item(null, "renamed", null, "UNPROCESSED", "one@example.com"));
+            // a read before the commit still gets the committed row
+            assertTrue(itemCache.getIfPresent(1L).isPresent());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertTrue(itemCache.getIfPresent(1L).isEmpty());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
         }
+    }
+
+    @Test
+    public void testUpdateAll_CachesAndIndexesItemsOnlyOnceCommitted() {
+        // stands in for the transaction of @Transactional
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            itemService.updateAll(List.of(new Item(1L, "renamed", null, "UNPROCESSED", "one@example.com")));
+            assertTrue(itemCache.getIfPresent(1L).isEmpty());
+            verify(itemSearchIndex, never()).put(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals("renamed", itemCache.getIfPresent(1L).orElseThrow().getName());
+            verify(itemSearchIndex).put(argThat(item -> item.getId() == 1L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testProcessItemsInBackground_FailedChunkDoesNotStopRun() {
+        when(itemRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long.MIN_VALUE, 2L))
+                .thenThrow(new IllegalStateException("deadlock"));
+        ReflectionTestUtils.setField(itemService, "maxFailedIds", 1);
+        ProcessingJob job = new ProcessingJob();
+
+        itemService.processItemsInBackground(job).join();
+
+        assertEquals(ProcessingJob.State.COMPLETED, job.getState());
+        assertEquals(2, job.getFailed());
+        // both items of the chunk failed, only the first id is kept
+        assertEquals(List.of(1L), job.status().failedIds());
+        assertTrue(job.status().failedIdsTruncated());
+        assertEquals(1, job.getProcessed());
+        assertEquals(1, meterRegistry.get("item.processing.errors").tag("exception", "IllegalStateException").counter().count());
+        assertEquals("PROCESSED", processedItems.stream().filter(i -> i.getId() == 3L).findFirst().orElseThrow().getStatus());
+        // the items of the failed chunk are still to do, so the watermark does not move
+        verify(checkpointRepository, never()).save(any());
+    }
+
+    @Test
+    public void testProcessItemsInBackground_FailedItemOnlyFailsItself() {
+        // validation stage in front of the default one, rejecting item 1
+        ItemProcessor validate = new ItemProcessor() {
+            @Override
+            public String name() {
+                return "validate";
+            }
+
+            @Override
+            public List<Item> process(List<Item> batch) {
+                if (batch.stream().anyMatch(item -> item.getId() == 1L)) {
+                    throw new IllegalArgumentException("item 1 is invalid");
+                }
+                return batch;
+            }
+        };
+        ItemPipeline pipeline = new ItemPipeline(List.of(stage(validate), stage(new MarkProcessedStage())), itemMetrics);
+        ReflectionTestUtils.setField(itemService, "itemPipeline", pipeline);
+        ProcessingJob job = new ProcessingJob();
+
+        itemService.processItemsInBackground(job).join();
+
+        assertEquals(ProcessingJob.State.COMPLETED, job.getState());
+        assertEquals(1, job.getFailed());
+        assertEquals(List.of(1L), job.getFailedIds());
+        assertEquals(1, job.getProcessed());
+        assertEquals(1, job.getSkipped());
+        assertEquals("UNPROCESSED", processedItems.stream().filter(i -> i.getId() == 1L).findFirst().orElseThrow().getStatus());
+        assertEquals("PROCESSED", processedItems.stream().filter(i -> i.getId() == 3L).findFirst().orElseThrow().getStatus());
+        // dead-lettered with its first failed attempt, so it is still to do
+        verify(entityManager).persist(argThat(failure -> ((ProcessingFailure) failure).getItemId() == 1L
+                && ((ProcessingFailure) failure).getAttempts() == 1));
+        verify(checkpointRepository, never()).save(any());
+        assertEquals(1, meterRegistry.get("item.pipeline.items").tag("stage", "validate").tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    public void testProcessItemsInBackground_ItemOutOfAttemptsNoLongerHoldsWatermark() {
+        ItemPipeline pipeline = new ItemPipeline(List.of(stage(rejecting(1L)), stage(new MarkProcessedStage())), itemMetrics);
+        ReflectionTestUtils.setField(itemService, "itemPipeline", pipeline);
+        // failed twice in earlier runs, this is its last attempt
+        ProcessingFailure failure = new ProcessingFailure(1L, 2, "item 1 is invalid", Instant.now().minusSeconds(60));
+        when(failureRepository.count()).thenReturn(1L);
+        when(failureRepository.findAllById(List.of(1L))).thenReturn(List.of(failure));
+        ProcessingJob job = new ProcessingJob();
+
+        itemService.processItemsInBackground(job).join();
+
+        assertEquals(List.of(1L), job.getFailedIds());
+        assertEquals(3, failure.getAttempts());
+        // parked: the watermark moves past it
+        verify(checkpointRepository).save(any(ProcessingCheckpoint.class));
+        // the other items of its chunk are cleared from the dead-letter list
+        verify(failureRepository).deleteAllByIdInBatch(List.of(2L));
+        verify(failureRepository).deleteAllByIdInBatch(List.of(3L));
+    }
 
-        verify(itemRepository, times(1)).findAllIds();
-        verify(itemRepository, times(3)).findById(anyLong());
-        verify(itemRepository, times(3)).save(any(Item.class));
+    @Test
+    public void testProcessChunk_StagesRunWithoutTransaction() {
+        List<Boolean> inTransaction = new ArrayList<>();
+        ItemProcessor probe = new ItemProcessor() {
+            @Override
+            public String name() {
+                return "probe";
+            }
+
+            @Override
+            public List<Item> process(List<Item> batch) {
+                // every transaction begun so far has been committed or rolled back
+                long begun = mockingDetails(transactionManager).getInvocations().stream()
+                        .filter(invocation -> invocation.getMethod().getName().equals("getTransaction")).count();
+                long ended = mockingDetails(transactionManager).getInvocations().stream()
+                        .filter(invocation -> invocation.getMethod().getName().matches("commit|rollback")).count();
+                inTransaction.add(begun != ended);
+                return batch;
+            }
+        };
+        ItemPipeline pipeline = new ItemPipeline(List.of(stage(probe), stage(new MarkProcessedStage())), itemMetrics);
+        ReflectionTestUtils.setField(itemService, "itemPipeline", pipeline);
+
+        itemService.processItemsInBackground(new ProcessingJob()).join();
+
+        assertEquals(List.of(false, false), inTransaction);
+        assertEquals("PROCESSED", processedItems.stream().filter(i -> i.getId() == 1L).findFirst().orElseThrow().getStatus());
+    }
+
+    // a stage failing every batch that holds the item
+    private static ItemProcessor rejecting(long id) {
+        return new ItemProcessor() {
+            @Override
+            public String name() {
+                return "validate";
+            }
+
+            @Override
+            public List<Item> process(List<Item> batch) {
+                if (batch.stream().anyMatch(item -> item.getId() == id)) {
+                    throw new IllegalArgumentException("item " + id + " is invalid");
+                }
+                return batch;
+            }
+        };
+    }
+
+    @Test
+    public void testProcessItemsInBackground_WithoutCheckpointReadsEverythingAndSavesWatermark() {
+        Instant before = Instant.now();
+
+        itemService.processItemsInBackground(new ProcessingJob()).join();
+
+        ArgumentCaptor<ProcessingCheckpoint> checkpoint = ArgumentCaptor.forClass(ProcessingCheckpoint.class);
+        verify(checkpointRepository).save(checkpoint.capture());
+        assertEquals(ItemService.PROCESSING_CHECKPOINT, checkpoint.getValue().getName());
+        assertFalse(checkpoint.getValue().getWatermark().isBefore(before));
+        // the updated items carry the start of the run, which is the new watermark
+        assertEquals(checkpoint.getValue().getWatermark(), processedItems.stream().filter(i -> i.getId() == 1L).findFirst().orElseThrow().getModifiedAt());
+        verify(itemRepository, times(3)).findIdsBetween(anyLong(), anyLong(), any(Pageable.class));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testProcessItemsInBackground_ReadsOnlyItemsModifiedSinceWatermark() {
+        Instant watermark = Instant.now().minusSeconds(3600);
+        processedItems.get(0).setModifiedAt(watermark.plusSeconds(60));   // changed, unprocessed
+        processedItems.get(1).setModifiedAt(watermark.plusSeconds(30));   // changed, already processed
+        processedItems.get(2).setModifiedAt(watermark.minusSeconds(60));  // unchanged since the last run
+        when(checkpointRepository.findById(ItemService.PROCESSING_CHECKPOINT))
+                .thenReturn(Optional.of(new ProcessingCheckpoint(ItemService.PROCESSING_CHECKPOINT, watermark, watermark)));
+        when(itemRepository.countByModifiedAtAfter(watermark.minusSeconds(5))).thenReturn(2L);
+        ProcessingJob job = new ProcessingJob();
+
+        itemService.processItemsInBackground(job).join();
+
+        assertEquals(2, job.status().total());
+        assertEquals(watermark.minusSeconds(5), job.status().since());
+        assertEquals(1, job.getProcessed());
+        assertEquals(1, job.getSkipped());
+        assertEquals("UNPROCESSED", processedItems.stream().filter(i -> i.getId() == 3L).findFirst().orElseThrow().getStatus());
+        verify(itemRepository, never()).findIdsBetween(anyLong(), anyLong(), any(Pageable.class));
+        verify(itemRepository, never()).count();
+        verify(checkpointRepository).save(any(ProcessingCheckpoint.class));
+    }
+
+    @Test
+    public void testProcessItemsAsync_FullRescanIgnoresCheckpoint() {
+        ProcessingJobStatus summary = itemService.processItemsAsync(true);
+
+        assertEquals(2, summary.processed());
+        assertTrue(summary.fullRescan());
+        verify(itemRepository).count();
+        verify(itemRepository, never()).findKeysModifiedBetween(any(), any(), anyLong(), anyLong(), any(), anyLong(), any(Pageable.class));
+        verify(checkpointRepository).save(any(ProcessingCheckpoint.class));
+    }
+
+    @Test
+    public void testFindProcessedPage_ReadsTheItemsStampedByTheRun() {
+        ProcessingJob job = new ProcessingJob();
+        assertEquals(List.of(), itemService.findProcessedPage(job, null, 10).items());
+
+        itemService.processItemsInBackground(job).join();
+        when(itemRepository.findViewsByModifiedAtAndIdGreaterThanOrderByIdAsc(eq(job.getUntil()), eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenAnswer(invocation -> processedItems.stream()
+                        .filter(i -> job.getUntil().equals(i.getModifiedAt()))
+                        .sorted(Comparator.comparing(Item::getId))
+                        .map(ItemView::of)
+                        .toList());
+
+        ItemPage page = itemService.findProcessedPage(job, null, 1);
+
+        // items 1 and 3 were updated, item 2 was already processed
+        assertEquals(List.of(1L), page.items().stream().map(ItemView::id).toList());
+        assertEquals(1L, page.nextCursor());
+    }
+
+    @Test
+    public void testFindProcessedPage_InLeaseModeReadsOnlyTheClaimedRanges() {
+        Instant until = Instant.now();
+        // all three stamped in the same round, item 2 by another instance
+        processedItems.forEach(item -> item.setModifiedAt(until));
+        ProcessingJob job = new ProcessingJob();
+        job.restrictToRanges();
+        job.addRange(2L, 3L);
+        job.addRange(0L, 1L);
+        job.start(3, null, until);
+        when(itemRepository.findViewsByModifiedAtAndIdGreaterThanAndIdLessThanEqualOrderByIdAsc(eq(until), anyLong(), anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    Long after = invocation.getArgument(1);
+                    Long last = invocation.getArgument(2);
+                    Pageable pageable = invocation.getArgument(3);
+                    return processedItems.stream()
+                            .filter(i -> i.getId() > after && i.getId() <= last)
+                            .sorted(Comparator.comparing(Item::getId))
+                            .limit(pageable.getPageSize())
+                            .map(ItemView::of)
+                            .toList();
+                });
+
+        ItemPage first = itemService.findProcessedPage(job, null, 1);
+        ItemPage second = itemService.findProcessedPage(job, first.nextCursor(), 1);
+
+        assertEquals(List.of(1L), first.items().stream().map(ItemView::id).toList());
+        assertEquals(List.of(3L), second.items().stream().map(ItemView::id).toList());
+        assertNull(second.nextCursor());
+        verify(itemRepository, never()).findViewsByModifiedAtAndIdGreaterThanOrderByIdAsc(any(), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    public void testProcessItemsInBulk_UpdatesPerIdRange() {
+        when(itemRepository.findMinId()).thenReturn(1L);
+        when(itemRepository.findMaxId()).thenReturn(3L);
+        when(itemRepository.findUnprocessedIdsInRange(0L, 2L)).thenReturn(List.of(1L));
+        when(itemRepository.findUnprocessedIdsInRange(2L, 3L)).thenReturn(List.of(3L));
+        when(itemRepository.markProcessedInRange(eq(0L), eq(2L), any(Instant.class))).thenReturn(1);
+        when(itemRepository.markProcessedInRange(eq(2L), eq(3L), any(Instant.class))).thenReturn(1);
+        ReflectionTestUtils.setField(itemService, "maxReturnedIds", 1);
+
+        BulkProcessResult result = itemService.processItemsInBulk(2, true);
+
+        assertEquals(2, result.updated());
+        assertEquals(2, result.ranges());
+        assertEquals(List.of(1L), result.ids());
+        assertTrue(result.idsTruncated());
+        verify(itemCache).invalidateAll();
+        verify(itemRepository, never()).findById(anyLong());
+        verify(itemRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    public void testProcessItemsInBulk_RangeSizeDoesNotOverflow() {
+        when(itemRepository.findMinId()).thenReturn(1L);
+        when(itemRepository.findMaxId()).thenReturn(3L);
+        when(itemRepository.markProcessedInRange(eq(0L), eq(3L), any(Instant.class))).thenReturn(3);
+
+        BulkProcessResult result = itemService.processItemsInBulk(Long.MAX_VALUE, false);
+
+        assertEquals(3, result.updated());
+        assertEquals(1, result.ranges());
+    }
+
+    @Test
+    public void testProcessItemsInBulk_EmptyTable() {
+        when(itemRepository.findMinId()).thenReturn(null);
+        when(itemRepository.findMaxId()).thenReturn(null);
+
+        BulkProcessResult result = itemService.processItemsInBulk(100, false);
+
+        assertEquals(0, result.updated());
+        assertEquals(0, result.ranges());
+        assertNull(result.ids());
+        verify(itemRepository, never()).markProcessedInRange(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void testProcessItemsAsync_RecordsTimings() {
+        itemService.processItemsAsync();
+
+        assertEquals(3, meterRegistry.get("item.processing.item").timer().count());
+        // one batch per chunk through the default stage
+        assertEquals(2, meterRegistry.get("item.pipeline.batch").tag("stage", MarkProcessedStage.NAME).timer().count());
+        assertEquals(2, meterRegistry.get("item.processing.chunk").timer().count());
+        assertEquals(2, meterRegistry.get("item.repository").tag("operation", "findChunk").timer().count());
+    }
+
+    @Test
+    public void testUpdate_SingleStatementWithoutRead() {
+        when(itemRepository.updateContent(eq(1L), eq("renamed"), isNull(), eq("NEW"), eq("one@example.com"), any(Instant.class))).thenReturn(1);
+        when(itemRepository.findVersionById(1L)).thenReturn(Optional.of(4L));
+
+        ItemWriteResult result = itemService.update(1L, new Item(null, "renamed", null, "NEW", "one@example.com"));
+
+        assertEquals(WriteOutcome.DONE, result.outcome());
+        assertEquals(1L, result.item().getId());
+        // without an expected version the new one is read back
+        assertEquals(4L, result.item().getVersion());
+        assertNotNull(result.item().getModifiedAt());
+        verify(itemRepository, never()).findById(anyLong());
+        verify(itemRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    public void testUpdate_StaleVersionIsConflictAndMissingItemIsNotFound() {
+        Item stale = new Item(null, "renamed", null, "NEW", "one@example.com");
+        stale.setVersion(4L);
+        when(itemRepository.existsById(1L)).thenReturn(true);
+
+        assertEquals(WriteOutcome.CONFLICT, itemService.update(1L, stale).outcome());
+        assertEquals(WriteOutcome.NOT_FOUND, itemService.update(9L, stale).outcome());
+    }
+
+    @Test
+    public void testDelete_ReportsOutcomeFromRowCount() {
+        when(itemRepository.deleteItem(1L)).thenReturn(1);
+        when(itemRepository.existsById(2L)).thenReturn(true);
+
+        assertEquals(WriteOutcome.DONE, itemService.delete(1L, null));
+        assertEquals(WriteOutcome.NOT_FOUND, itemService.delete(3L, null));
+        assertEquals(WriteOutcome.CONFLICT, itemService.delete(2L, 7L));
+        verify(itemCache).invalidate(1L);
+    }
+
+    @Test
+    public void testProcessChunk_RetriesAfterConcurrentModification() {
+        when(itemRepository.saveAll(anyList()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        ProcessingJob job = new ProcessingJob();
+
+        itemService.processItemsInBackground(job).join();
+
+        assertEquals(0, job.getFailed());
+        assertEquals(3, job.getProcessed() + job.getSkipped());
+        assertEquals(1, meterRegistry.get("item.processing.retries").counter().count());
+        // the first chunk was read twice
+        verify(itemRepository, times(3)).findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(anyLong(), anyLong());
+    }
+
+    @Test
+    public void testProcessChunk_GivesUpAfterMaxRetries() {
+        ReflectionTestUtils.setField(itemService, "maxRetries", 1);
+        // a stage passing every item on, so each attempt writes the whole chunk (the simulated DB hands out
+        // the same instances on a re-read, which the default stage would find already processed)
+        ItemPipeline pipeline = new ItemPipeline(List.of(stage(rejecting(-1L))), itemMetrics);
+        ReflectionTestUtils.setField(itemService, "itemPipeline", pipeline);
+        when(itemRepository.saveAll(anyList())).thenThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L));
+        ProcessingJob job = new ProcessingJob();
+
+        itemService.processItemsInBackground(job).join();
+
+        assertEquals(3, job.getFailed());
+        assertEquals(2, meterRegistry.get("item.processing.retries").counter().count());
+    }
+
+
+    @Test
+    public void testProcessItemsInBackground_WithLeasesWorksOnlyOnClaimedRanges() {
+        ReflectionTestUtils.setField(itemService, "leasesEnabled", true);
+        Instant until = Instant.now();
+        WorkLease first = new WorkLease(0L, 2L, null, until, "me", until, false, 0, false);
+        WorkLease second = new WorkLease(2L, 4L, null, until, "me", until, false, 0, false);
+        when(workLeaseService.joinOrOpenRound(any(), any())).thenReturn(new WorkRound(null, until));
+        when(workLeaseService.claimNext(any()))
+                .thenReturn(Optional.of(first))
+                .thenReturn(Optional.of(second))
+                .thenReturn(Optional.empty());
+        when(workLeaseService.renew(any())).thenReturn(true);
+        when(workLeaseService.complete(second)).thenReturn(true);
+        when(itemRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(0L, 2L)).thenThrow(new IllegalStateException("deadlock"));
+        ProcessingJob job = new ProcessingJob();
+
+        itemService.processItemsInBackground(job).join();
+
+        // the failed range is handed back for another attempt, the round was finished by the other one
+        verify(workLeaseService).fail(first);
+        verify(workLeaseService, never()).release(any());
+        verify(workLeaseService, never()).complete(first);
+        assertEquals(2, job.getFailed());
+        assertEquals(1, job.getProcessed());
+        assertEquals(until, processedItems.stream().filter(i -> i.getId() == 3L).findFirst().orElseThrow().getModifiedAt());
+        verify(checkpointRepository).save(argThat(checkpoint -> until.equals(checkpoint.getWatermark())));
+    }
+
+    @Test
+    public void testProcessItemsInBackground_WithLeasesReportsIgnoredFullRescan() {
+        ReflectionTestUtils.setField(itemService, "leasesEnabled", true);
+        Instant since = Instant.now().minusSeconds(60);
+        // another instance opened a round of the items changed since its watermark
+        when(workLeaseService.joinOrOpenRound(isNull(), any())).thenReturn(new WorkRound(since, Instant.now()));
+        when(workLeaseService.claimNext(any())).thenReturn(Optional.empty());
+        ProcessingJob job = new ProcessingJob(true);
+
+        itemService.processItemsInBackground(job).join();
+
+        ProcessingJobStatus status = job.status();
+        assertTrue(status.fullRescan());
+        assertTrue(status.fullRescanIgnored());
+        assertEquals(since, status.since());
+    }
+}
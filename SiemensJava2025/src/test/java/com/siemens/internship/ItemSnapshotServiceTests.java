@@ -0,0 +1,157 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class ItemSnapshotServiceTests {
+
+    @Autowired
+    private ItemSnapshotService snapshotService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    public void setup() {
+        itemRepository.deleteAllInBatch();
+        ReflectionTestUtils.setField(snapshotService, "snapshotDir", dir);
+        // several chunks / insert batches per snapshot
+        ReflectionTestUtils.setField(snapshotService, "chunkSize", 3);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        itemRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testWriteAndRestore_KeepsIdsAndContent() throws IOException {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            items.add(new Item(null, "item " + i, i % 2 == 0 ? null : "description é中 " + i, "NEW", "user" + i + "@example.com"));
+        }
+        List<Item> saved = itemService.createAll(items).items();
+
+        for (boolean compress : new boolean[]{true, false}) {
+            SnapshotResult written = snapshotService.write(compress);
+            assertEquals(10, written.items());
+            assertEquals(written.bytes(), Files.size(dir.resolve(written.name())));
+
+            itemRepository.deleteAllInBatch();
+            SnapshotResult restored = snapshotService.restore(snapshotService.find(written.name()).orElseThrow());
+
+            assertEquals(10, restored.items());
+            assertEquals(compress, restored.compressed());
+            for (Item original : saved) {
+                Item copy = itemRepository.findById(original.getId()).orElseThrow();
+                assertEquals(original.getName(), copy.getName());
+                assertEquals(original.getDescription(), copy.getDescription());
+                assertEquals(original.getEmail(), copy.getEmail());
+            }
+        }
+
+        // new items get ids past the restored ones
+        long maxId = saved.stream().mapToLong(Item::getId).max().orElseThrow();
+        Item created = itemService.save(new Item(null, "after restore", null, "NEW", "new@example.com"));
+        assertTrue(created.getId() > maxId);
+    }
+
+    @Test
+    public void testFind_OnlySnapshotFileNames() throws IOException {
+        Files.writeString(dir.resolve("notes.txt"), "x");
+
+        assertTrue(snapshotService.find("notes.txt").isEmpty());
+        assertTrue(snapshotService.find("../items.isnp").isEmpty());
+        assertTrue(snapshotService.find("missing.isnp").isEmpty());
+    }
+
+    @Test
+    public void testRestore_RejectsTruncatedAndForeignFiles() throws IOException {
+        itemService.createAll(List.of(new Item(null, "kept", null, "NEW", "kept@example.com")));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ItemSnapshotFormat.Writer writer = new ItemSnapshotFormat.Writer(bytes, false)) {
+            writer.write(new Item(1L, "a", null, "NEW", "a@example.com"));
+            writer.write(new Item(2L, "b", null, "NEW", "b@example.com"));
+        }
+        byte[] complete = bytes.toByteArray();
+        Path truncated = Files.write(dir.resolve("truncated.isnp"), Arrays.copyOf(complete, complete.length - 3));
+        Path foreign = Files.writeString(dir.resolve("foreign.isnp"), "[{\"id\":1}]");
+
+        assertThrows(EOFException.class, () -> snapshotService.restore(truncated));
+        assertThrows(StreamCorruptedException.class, () -> snapshotService.restore(foreign));
+        assertEquals("kept", itemRepository.findAll().get(0).getName());
+        assertEquals(1, itemRepository.count());
+    }
+
+    @Test
+    public void testReader_RejectsInvalidRecordLengths() throws IOException {
+        // shorter than the id
+        assertThrows(StreamCorruptedException.class, () -> readAll(3, 1, 2, 3));
+        // over MAX_RECORD_BYTES, announced before any of it arrives
+        assertThrows(StreamCorruptedException.class, () -> readAll(0xFF, 0xFF, 0xFF, 0xFF, 0x07));
+        // does not fit an int
+        assertThrows(StreamCorruptedException.class, () -> readAll(0xFF, 0xFF, 0xFF, 0xFF, 0x7F));
+        assertThrows(StreamCorruptedException.class, () -> readAll(0x80, 0x80, 0x80, 0x80, 0x80, 0x01));
+        // a valid length with the record cut short
+        assertThrows(EOFException.class, () -> readAll(20, 0, 0, 0, 0, 0, 0, 0, 1, 0));
+        // a string running past the end of its record
+        assertThrows(StreamCorruptedException.class, () -> readAll(9, 0, 0, 0, 0, 0, 0, 0, 1, 0x7F));
+    }
+
+    @Test
+    public void testRestore_FailedInsertLeavesItemsAsTheyWere() throws IOException {
+        itemService.createAll(List.of(new Item(null, "kept", null, "NEW", "kept@example.com")));
+        // the same id twice, in the second insert batch
+        Path duplicates = dir.resolve("duplicates.isnp");
+        try (ItemSnapshotFormat.Writer writer = new ItemSnapshotFormat.Writer(Files.newOutputStream(duplicates), false)) {
+            for (long id = 1; id <= 4; id++) {
+                writer.write(new Item(id, "restored " + id, null, "NEW", "r" + id + "@example.com"));
+            }
+            writer.write(new Item(4L, "duplicate", null, "NEW", "d@example.com"));
+        }
+
+        assertThrows(DataIntegrityViolationException.class, () -> snapshotService.restore(duplicates));
+        assertEquals(1, itemRepository.count());
+        assertEquals("kept", itemRepository.findAll().get(0).getName());
+    }
+
+    // reads an uncompressed snapshot made of a valid header and the given body bytes
+    private static void readAll(int... body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(new byte[]{'I', 'S', 'N', 'P', ItemSnapshotFormat.VERSION, 0});
+        for (int b : body) {
+            bytes.write(b);
+        }
+        try (ItemSnapshotFormat.Reader reader = new ItemSnapshotFormat.Reader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            while (reader.next() != null) {
+                // read to the end
+            }
+        }
+    }
+}
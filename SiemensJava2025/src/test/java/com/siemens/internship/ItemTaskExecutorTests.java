@@ -0,0 +1,53 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemTaskExecutorTests {
+
+    @Test
+    public void testSubmitBlocksWhileMaxInFlightReached() throws Exception {
+        ItemTaskExecutor executor = new ItemTaskExecutor(new SimpleAsyncTaskExecutor(), 1, Duration.ofSeconds(1));
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> first = executor.submit(() -> {
+            await(release);
+            return null;
+        });
+
+        CompletableFuture<Integer> second = CompletableFuture.supplyAsync(() -> executor.submit(() -> 2).join());
+
+        // the second submit cannot get a slot until the first task is done
+        Thread.sleep(200);
+        assertFalse(second.isDone());
+        assertEquals(1, executor.getInFlight());
+
+        release.countDown();
+        first.get(1, TimeUnit.SECONDS);
+        assertEquals(2, second.get(1, TimeUnit.SECONDS));
+        executor.close();
+    }
+
+    @Test
+    public void testClosedExecutorRejectsWork() {
+        ItemTaskExecutor executor = new ItemTaskExecutor(new SimpleAsyncTaskExecutor(), 2, Duration.ofSeconds(1));
+        executor.close();
+
+        assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> 1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.siemens.internship;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time from launching the application to its first successful request
+ * ({@code GET /api/items/page?limit=1}) in each startup mode, starting a fresh JVM per run:
+ * <ul>
+ *     <li>default - the regular configuration</li>
+ *     <li>fast-startup - the fast-startup Spring profile</li>
+ *     <li>fast-startup+aot - the same with the AOT generated bean definitions (-Dspring.aot.enabled)</li>
+ *     <li>fast-startup+aot+cds - the same with the class data sharing archive of the training run</li>
+ * </ul>
+ * Run by {@code mvn -Pfast-startup -DskipTests verify} on the jar extracted to target/fast-startup, see pom.xml;
+ * -Dstartup.runs sets the runs per mode (3 by default). The modes whose files are missing are skipped.
+ */
+public class StartupTimeHarness {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(3);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Path.of(args[0]).toAbsolutePath();
+        int runs = Integer.getInteger("startup.runs", 3);
+        Path archive = jar.resolveSibling("application.jsa");
+
+        StartupTimeHarness harness = new StartupTimeHarness();
+        StringBuilder report = new StringBuilder(String.format("%-22s %10s %10s %10s%n", "mode", "min ms", "median ms", "max ms"));
+        report.append(harness.measure("default", jar, runs, List.of(), List.of()));
+        report.append(harness.measure("fast-startup", jar, runs, List.of(), List.of("--spring.profiles.active=fast-startup")));
+        report.append(harness.measure("fast-startup+aot", jar, runs, List.of("-Dspring.aot.enabled=true"),
+                List.of("--spring.profiles.active=fast-startup")));
+        if (Files.exists(archive)) {
+            report.append(harness.measure("fast-startup+aot+cds", jar, runs,
+                    List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true"),
+                    List.of("--spring.profiles.active=fast-startup")));
+        } else {
+            System.out.println("No " + archive + ", skipping the CDS mode");
+        }
+        System.out.println();
+        System.out.println("Time to first successful request, " + runs + " runs per mode:");
+        System.out.print(report);
+    }
+
+    private String measure(String mode, Path jar, int runs, List<String> jvmOptions, List<String> arguments) throws Exception {
+        long[] millis = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            millis[run] = timeToFirstRequest(jar, jvmOptions, arguments);
+            System.out.println(mode + " run " + (run + 1) + ": " + millis[run] + " ms");
+        }
+        Arrays.sort(millis);
+        return String.format("%-22s %10d %10d %10d%n", mode, millis[0], millis[runs / 2], millis[runs - 1]);
+    }
+
+    private long timeToFirstRequest(Path jar, List<String> jvmOptions, List<String> arguments) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.addAll(List.of("-jar", jar.toString(), "--server.port=" + port, "--logging.level.root=WARN"));
+        command.addAll(arguments);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/items/page?limit=1"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(jar.getParent().toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(new File(jar.getParent().toFile(), "startup-run.log"))
+                .start();
+        try {
+            while (System.nanoTime() - started < TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue() + ", see startup-run.log");
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                    }
+                } catch (IOException e) {
+                    // not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("No successful request within " + TIMEOUT);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.siemens.internship;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// two application instances sharing one file-based H2 database, as two replicas would
+public class WorkLeaseTests {
+
+    private static final int ITEMS = 2000;
+
+    @TempDir
+    Path dataDir;
+
+    private ConfigurableApplicationContext first;
+    private ConfigurableApplicationContext second;
+
+    @BeforeEach
+    public void startInstances() {
+        first = startInstance();
+        second = startInstance();
+
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new Item(null, "item " + i, null, "UNPROCESSED", "user" + i + "@example.com"));
+        }
+        first.getBean(ItemService.class).createAll(items);
+    }
+
+    private ConfigurableApplicationContext startInstance(String... args) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:file:" + dataDir.resolve("items").toAbsolutePath(),
+                "--item.processing.leases.enabled=true",
+                "--item.processing.leases.range-size=100",
+                "--item.processing.chunk-size=50"));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(InternshipApplication.class, PoisonStageConfig.class)
+                .web(WebApplicationType.NONE)
+                // command line arguments, so they take precedence over application.properties
+                .run(arguments.toArray(new String[0]));
+    }
+
+    // a stage failing every item named "poison", for the instances that list it in their pipeline
+    @TestConfiguration
+    static class PoisonStageConfig {
+        @Bean
+        ItemProcessor poisonStage() {
+            return new ItemProcessor() {
+                @Override
+                public String name() {
+                    return "poison";
+                }
+
+                @Override
+                public List<Item> process(List<Item> batch) {
+                    if (batch.stream().anyMatch(item -> "poison".equals(item.getName()))) {
+                        throw new IllegalArgumentException("poison item");
+                    }
+                    return batch;
+                }
+            };
+        }
+    }
+
+    @AfterEach
+    public void stopInstances() {
+        second.close();
+        first.close();
+    }
+
+    @Test
+    public void testConcurrentRunsSplitTheRanges() {
+        CompletableFuture<ProcessingJob> firstRun = first.getBean(ItemService.class).processItemsInBackground(new ProcessingJob());
+        CompletableFuture<ProcessingJob> secondRun = second.getBean(ItemService.class).processItemsInBackground(new ProcessingJob());
+        ProcessingJob firstJob = firstRun.join();
+        ProcessingJob secondJob = secondRun.join();
+
+        // every item was read by exactly one of the instances
+        assertEquals(ITEMS, firstJob.getProcessed() + secondJob.getProcessed());
+        assertEquals(0, firstJob.getSkipped() + secondJob.getSkipped());
+        assertEquals(0, firstJob.getFailed() + secondJob.getFailed());
+        assertEquals(0, first.getBean(WorkLeaseRepository.class).countByDoneFalse());
+        assertTrue(first.getBean(ProcessingCheckpointRepository.class).existsById(ItemService.PROCESSING_CHECKPOINT));
+        assertEquals(ITEMS, first.getBean(ItemRepository.class)
+                .findViewsByStatusAndIdGreaterThanOrderByIdAsc("PROCESSED", Long.MIN_VALUE, Pageable.unpaged()).size());
+    }
+
+    @Test
+    public void testNextRoundProcessesOnlyItemsChangedSince() {
+        ItemService itemService = first.getBean(ItemService.class);
+        ItemRepository itemRepository = first.getBean(ItemRepository.class);
+        assertEquals(ITEMS, itemService.processItemsInBackground(new ProcessingJob()).join().getProcessed());
+
+        // nothing changed since the checkpoint
+        ProcessingJob idle = itemService.processItemsInBackground(new ProcessingJob()).join();
+        assertEquals(0, idle.getProcessed());
+
+        Item changed = itemRepository.findById(itemRepository.findMinId()).orElseThrow();
+        changed.setStatus("UNPROCESSED");
+        changed.setVersion(null);
+        itemService.update(changed.getId(), changed);
+        ProcessingJob next = second.getBean(ItemService.class).processItemsInBackground(new ProcessingJob()).join();
+
+        assertEquals(1, next.getProcessed());
+        assertEquals("PROCESSED", itemRepository.findById(changed.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void testExpiredLeaseIsTakenOver() {
+        // the first instance claims a range and stops renewing it, as if it had died
+        WorkLeaseService stalled = first.getBean(WorkLeaseService.class);
+        stalled.joinOrOpenRound(null, Instant.now());
+        WorkLease held = stalled.claimNext().orElseThrow();
+        ItemService itemService = second.getBean(ItemService.class);
+        ItemRepository itemRepository = second.getBean(ItemRepository.class);
+
+        ProcessingJob partial = itemService.processItemsInBackground(new ProcessingJob()).join();
+
+        long heldItems = itemRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(held.getRangeStart(), held.getRangeEnd()).size();
+        assertEquals(ITEMS - heldItems, partial.getProcessed());
+        assertFalse(second.getBean(ProcessingCheckpointRepository.class).existsById(ItemService.PROCESSING_CHECKPOINT));
+
+        // the lease runs out
+        held.setExpiresAt(Instant.now().minusSeconds(1));
+        first.getBean(WorkLeaseRepository.class).save(held);
+        ProcessingJob takeover = itemService.processItemsInBackground(new ProcessingJob()).join();
+
+        assertEquals(heldItems, takeover.getProcessed());
+        assertFalse(stalled.renew(held));
+        assertTrue(second.getBean(ProcessingCheckpointRepository.class).existsById(ItemService.PROCESSING_CHECKPOINT));
+    }
+
+    @Test
+    public void testRangeThatAlwaysFailsIsGivenUpOn() {
+        first.close();
+        first = startInstance("--item.processing.pipeline.stages=poison,mark-processed", "--item.processing.leases.max-attempts=2");
+        ItemService itemService = first.getBean(ItemService.class);
+        ItemRepository itemRepository = first.getBean(ItemRepository.class);
+        WorkLeaseRepository leaseRepository = first.getBean(WorkLeaseRepository.class);
+        Item poison = itemService.save(new Item(null, "poison", null, "UNPROCESSED", "poison@example.com"));
+
+        // the run ends instead of claiming the failing range again and again
+        ProcessingJob firstRun = itemService.processItemsInBackground(new ProcessingJob()).join();
+
+        assertEquals(ProcessingJob.State.COMPLETED, firstRun.getState());
+        assertEquals(List.of(poison.getId()), firstRun.getFailedIds());
+        assertEquals(ITEMS, firstRun.getProcessed());
+        assertEquals(1, leaseRepository.countByDoneFalse());
+
+        // the next run only retries that range, and closes it as failed after the second attempt
+        ProcessingJob secondRun = itemService.processItemsInBackground(new ProcessingJob()).join();
+
+        assertEquals(1, secondRun.getFailed());
+        assertEquals(0, secondRun.getProcessed());
+        assertEquals(0, leaseRepository.countByDoneFalse());
+        assertEquals(1, leaseRepository.countByFailedTrue());
+        assertFalse(first.getBean(ProcessingCheckpointRepository.class).existsById(ItemService.PROCESSING_CHECKPOINT));
+
+        // the round is over, so a later change is picked up by a new round instead of waiting on the old window
+        Item later = itemService.save(new Item(null, "later", null, "UNPROCESSED", "later@example.com"));
+        ProcessingJob thirdRun = itemService.processItemsInBackground(new ProcessingJob()).join();
+
+        assertEquals("PROCESSED", itemRepository.findById(later.getId()).orElseThrow().getStatus());
+        assertTrue(thirdRun.getFailedIds().contains(poison.getId()));
+    }
+}